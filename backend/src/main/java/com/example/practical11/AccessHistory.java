@@ -8,12 +8,21 @@ import java.time.format.DateTimeFormatter;
  * Implements Comparable for total ordering based on last login time.
  */
 public class AccessHistory implements Comparable<AccessHistory> {
+    private static final DateTimeFormatter DISPLAY_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private String userId;
     private String name;
     private String email;
     private String department;
     private LocalDateTime lastLoginTime;
 
+    /**
+     * For subclasses that keep their state elsewhere and override the getters
+     * (see OffHeapAccessStore)
+     */
+    protected AccessHistory() {
+    }
+
     public AccessHistory(String userId) {
         this.userId = userId;
         this.lastLoginTime = LocalDateTime.now();
@@ -32,6 +41,14 @@ public class AccessHistory implements Comparable<AccessHistory> {
         this.lastLoginTime = LocalDateTime.now();
     }
 
+    public AccessHistory(String userId, String name, String email, String department, LocalDateTime lastLoginTime) {
+        this.userId = userId;
+        this.name = name;
+        this.email = email;
+        this.department = department;
+        this.lastLoginTime = lastLoginTime;
+    }
+
     public String getUserId() {
         return userId;
     }
@@ -73,35 +90,35 @@ public class AccessHistory implements Comparable<AccessHistory> {
     }
 
     public String getLastLoginTimeISO() {
-        return lastLoginTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        return getLastLoginTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
     }
 
     @Override
     public String toString() {
         return "AccessHistory{" +
-                "userId='" + userId + '\'' +
-                ", name='" + name + '\'' +
-                ", email='" + email + '\'' +
-                ", department='" + department + '\'' +
-                ", lastLoginTime=" + lastLoginTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) +
+                "userId='" + getUserId() + '\'' +
+                ", name='" + getName() + '\'' +
+                ", email='" + getEmail() + '\'' +
+                ", department='" + getDepartment() + '\'' +
+                ", lastLoginTime=" + getLastLoginTime().format(DISPLAY_TIME) +
                 '}';
     }
 
     @Override
     public int compareTo(AccessHistory other) {
-        return this.lastLoginTime.compareTo(other.lastLoginTime);
+        return this.getLastLoginTime().compareTo(other.getLastLoginTime());
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
+        if (!(obj instanceof AccessHistory)) return false; // Views of another storage compare equal too
         AccessHistory that = (AccessHistory) obj;
-        return userId.equals(that.userId);
+        return getUserId().equals(that.getUserId());
     }
 
     @Override
     public int hashCode() {
-        return userId.hashCode();
+        return getUserId().hashCode();
     }
 }
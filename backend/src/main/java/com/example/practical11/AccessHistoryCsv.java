@@ -0,0 +1,85 @@
+package com.example.practical11;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal CSV support for bulk user import/export
+ * Fields are comma separated and may be double-quoted; a quote inside a quoted field is
+ * doubled. Records are one line each (quoted line breaks are not supported)
+ */
+final class AccessHistoryCsv {
+
+    static final String[] COLUMNS = { "userId", "name", "email", "department", "lastLoginTime" };
+
+    private AccessHistoryCsv() {
+    }
+
+    /**
+     * Splits one CSV line into its fields
+     * Time Complexity: O(line length)
+     */
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static void writeHeader(Writer out) throws IOException {
+        out.write(String.join(",", COLUMNS));
+        out.write('\n');
+    }
+
+    static void writeRow(Writer out, AccessHistory history) throws IOException {
+        writeField(out, history.getUserId());
+        out.write(',');
+        writeField(out, history.getName());
+        out.write(',');
+        writeField(out, history.getEmail());
+        out.write(',');
+        writeField(out, history.getDepartment());
+        out.write(',');
+        writeField(out, history.getLastLoginTimeISO());
+        out.write('\n');
+    }
+
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.practical11;
+
+/**
+ * Observer of MonitoringSystem mutations
+ * Callbacks run on the mutating thread while it still holds the lock for that userId, so
+ * a listener sees the changes for any one user in the order they were applied
+ * Implementations must be thread-safe and fast: writers for other users run concurrently
+ */
+public interface AccessHistoryListener {
+
+    /**
+     * A user was added, or an existing user's entry was replaced (e.g. a refreshed login time)
+     */
+    void onUpsert(AccessHistory history);
+
+    /**
+     * A user was removed
+     */
+    void onRemove(String userId);
+}
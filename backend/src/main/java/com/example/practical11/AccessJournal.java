@@ -0,0 +1,387 @@
+package com.example.practical11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Durable store for MonitoringSystem state: a memory-mapped append-only journal of
+ * upserts/removals plus periodic compacted snapshots
+ * An append is a copy into a mapped segment, not a system call; the OS writes the pages
+ * back, so a process crash loses nothing and the periodic force() bounds what a power
+ * loss can lose
+ * Recovery loads the newest snapshot and replays only the journal written after it,
+ * stopping at the first zero or torn record
+ *
+ * Files in the directory:
+ *   journal-N.log   fixed-size mapped segments, written in order
+ *   snapshot-N.dat  every user as of the start of journal segment N
+ */
+public class AccessJournal implements AccessHistoryListener, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessJournal.class);
+
+    private static final byte UPSERT = 1;
+    private static final byte REMOVE = 2;
+    private static final int HEADER_BYTES = 8; // int length + int crc32; length 0 ends a segment
+    private static final int SNAPSHOT_MAGIC = 0x41434353;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    // Guarded by this
+    private long segmentId = -1;
+    private MappedByteBuffer segment;
+
+    private MonitoringSystem system;
+    private ScheduledExecutorService maintenance;
+
+    public AccessJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Rebuilds the persisted users and opens a fresh segment for new appends
+     * Time Complexity: O(snapshot + journal tail)
+     */
+    public DynamicArray<AccessHistory> recover() throws IOException {
+        Files.createDirectories(directory);
+        Map<String, AccessHistory> users = new HashMap<>();
+
+        List<Long> snapshots = fileIds("snapshot-", ".dat");
+        long snapshotId = snapshots.isEmpty() ? -1 : snapshots.get(snapshots.size() - 1);
+        if (snapshotId >= 0) {
+            readSnapshot(snapshotFile(snapshotId), users);
+        }
+
+        long lastId = snapshotId;
+        long replayed = 0;
+        for (long id : fileIds("journal-", ".log")) {
+            long applied = id >= snapshotId ? replay(journalFile(id), users) : 0;
+            if (applied == 0) {
+                Files.delete(journalFile(id)); // Left empty by a previous run, or covered by the snapshot
+            }
+            replayed += applied;
+            lastId = Math.max(lastId, id);
+        }
+        recordsSinceSnapshot.set(replayed);
+
+        synchronized (this) {
+            openSegment(lastId + 1);
+        }
+        log.info("Recovered {} users ({} journal records after the snapshot)", users.size(), replayed);
+
+        DynamicArray<AccessHistory> recovered = new DynamicArray<>(users.size());
+        recovered.addAll(users.values());
+        return recovered;
+    }
+
+    /**
+     * Starts periodic force() and compaction once enough records have accumulated
+     */
+    public void start(MonitoringSystem system, long forceIntervalMs, long snapshotEvery) {
+        this.system = system;
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "monitoring-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                force();
+                if (recordsSinceSnapshot.get() >= snapshotEvery) {
+                    compact(system);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Monitoring journal maintenance failed", e);
+            }
+        }, forceIntervalMs, forceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onUpsert(AccessHistory history) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(UPSERT);
+            writeUser(out, history);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(bytes.toByteArray());
+    }
+
+    @Override
+    public void onRemove(String userId) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(REMOVE);
+            out.writeUTF(userId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * Copies one record into the current segment, rolling to a new segment when it is full
+     * Time Complexity: O(record size)
+     */
+    private synchronized void append(byte[] payload) {
+        int needed = HEADER_BYTES + payload.length;
+        if (needed > segmentSize) {
+            throw new IllegalArgumentException("Journal record larger than a segment: " + needed);
+        }
+        try {
+            if (segment.remaining() < needed) {
+                roll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll monitoring journal", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        segment.putInt(payload.length);
+        segment.putInt((int) crc.getValue());
+        segment.put(payload);
+        recordsSinceSnapshot.incrementAndGet();
+    }
+
+    /**
+     * Forces the current segment's dirty pages to disk
+     */
+    public void force() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            current = segment;
+        }
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the system and deletes the journal segments it covers
+     * The journal rolls first and the snapshot is taken afterwards, so the snapshot holds at
+     * least everything in the older segments; records of the new segment it already
+     * contains are replayed harmlessly, as every record is an idempotent upsert or removal
+     */
+    public void compact(MonitoringSystem system) throws IOException {
+        compactionLock.lock();
+        try {
+            long snapshotId;
+            synchronized (this) {
+                roll();
+                snapshotId = segmentId;
+                recordsSinceSnapshot.set(0);
+            }
+            writeSnapshot(snapshotId, system.snapshot());
+
+            for (long id : fileIds("journal-", ".log")) {
+                if (id < snapshotId) {
+                    Files.deleteIfExists(journalFile(id));
+                }
+            }
+            for (long id : fileIds("snapshot-", ".dat")) {
+                if (id < snapshotId) {
+                    Files.deleteIfExists(snapshotFile(id));
+                }
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Stops maintenance and leaves a compacted snapshot behind, so the next startup
+     * replays nothing
+     */
+    @Override
+    public void close() throws IOException {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        if (system != null && recordsSinceSnapshot.get() > 0) {
+            compact(system);
+        }
+        force();
+    }
+
+    // Caller holds this
+    private void roll() throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        openSegment(segmentId + 1);
+    }
+
+    // Caller holds this
+    private void openSegment(long id) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile(id),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize); // Stays valid after close
+        }
+        segmentId = id;
+    }
+
+    /**
+     * Applies the records of one segment to the map; returns how many were applied
+     */
+    private static long replay(Path file, Map<String, AccessHistory> users) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        long applied = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break; // End of the written part, or a torn record
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (in.readByte() == UPSERT) {
+                AccessHistory history = readUser(in);
+                users.put(history.getUserId(), history);
+            } else {
+                users.remove(in.readUTF());
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    private void writeSnapshot(long id, AccessSnapshot view) throws IOException {
+        Path temp = directory.resolve("snapshot-" + id + ".dat.tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(view.size());
+            for (AccessHistory history : view) {
+                writeUser(out, history);
+            }
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, snapshotFile(id), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readSnapshot(Path file, Map<String, AccessHistory> users) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a monitoring snapshot: " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                AccessHistory history = readUser(in);
+                users.put(history.getUserId(), history);
+            }
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Corrupt monitoring snapshot: " + file);
+            }
+        }
+    }
+
+    private static void writeUser(DataOutput out, AccessHistory history) throws IOException {
+        out.writeUTF(history.getUserId());
+        writeNullable(out, history.getName());
+        writeNullable(out, history.getEmail());
+        writeNullable(out, history.getDepartment());
+        LocalDateTime time = history.getLastLoginTime();
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static AccessHistory readUser(DataInput in) throws IOException {
+        String userId = in.readUTF();
+        String name = readNullable(in);
+        String email = readNullable(in);
+        String department = readNullable(in);
+        LocalDateTime time = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        return new AccessHistory(userId, name, email, department, time);
+    }
+
+    private static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private Path journalFile(long id) {
+        return directory.resolve("journal-" + id + ".log");
+    }
+
+    private Path snapshotFile(long id) {
+        return directory.resolve("snapshot-" + id + ".dat");
+    }
+
+    /**
+     * Ids of the files named prefix + id + suffix, ascending
+     */
+    private List<Long> fileIds(String prefix, String suffix) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.practical11;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, versioned view of the monitoring state
+ * Entries are in ascending order of last login time; a snapshot never changes after it is
+ * published, so any number of readers can share and iterate it while writers keep mutating
+ */
+public final class AccessSnapshot implements Iterable<AccessHistory> {
+    private static final AccessHistory[] NO_ENTRIES = new AccessHistory[0];
+
+    static final AccessSnapshot EMPTY = new AccessSnapshot(0L, NO_ENTRIES);
+
+    private final long version;
+    private final AccessHistory[] entries;
+
+    AccessSnapshot(long version, AccessHistory[] entries) {
+        this.version = version;
+        this.entries = entries;
+    }
+
+    /**
+     * Mutation epoch of the MonitoringSystem this snapshot was taken at
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    public AccessHistory get(int index) {
+        if (index < 0 || index >= entries.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + entries.length);
+        }
+        return entries[index];
+    }
+
+    @Override
+    public Iterator<AccessHistory> iterator() {
+        return new Iterator<AccessHistory>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < entries.length;
+            }
+
+            @Override
+            public AccessHistory next() {
+                if (cursor >= entries.length) {
+                    throw new NoSuchElementException();
+                }
+                return entries[cursor++];
+            }
+        };
+    }
+}
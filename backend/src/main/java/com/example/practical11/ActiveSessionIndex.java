@@ -0,0 +1,126 @@
+package com.example.practical11;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of active sessions: userId -> session id, department and login time
+ * Rebuilt from the database at startup and kept in step with every login/logout, so
+ * "is this user already logged in?" is answered without a query
+ * Sessions acknowledged by SessionWriteBehind but not yet flushed are indexed with a null id
+ */
+@Component
+public class ActiveSessionIndex {
+
+    /**
+     * Immutable index entry; replaced as a unit when the session's id becomes known
+     */
+    public static final class ActiveSession {
+        private final Long id;
+        private final String userId;
+        private final String department;
+        private final LocalDateTime loginTime;
+
+        public ActiveSession(Long id, String userId, String department, LocalDateTime loginTime) {
+            this.id = id;
+            this.userId = userId;
+            this.department = department;
+            this.loginTime = loginTime;
+        }
+
+        public Long getId() { return id; }
+        public String getUserId() { return userId; }
+        public String getDepartment() { return department; }
+        public LocalDateTime getLoginTime() { return loginTime; }
+
+        /**
+         * Detached entity describing this session, as returned by the login path
+         */
+        public UserSessionEntity toEntity() {
+            UserSessionEntity entity = new UserSessionEntity(userId, department, loginTime);
+            entity.setId(id);
+            return entity;
+        }
+    }
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    private final ConcurrentHashMap<String, ActiveSession> byUserId = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuild the index from the database
+     */
+    @PostConstruct
+    public void rebuild() {
+        List<Object[]> rows = sessionRepository.findActiveSessionKeys();
+        byUserId.clear();
+        for (Object[] row : rows) {
+            String userId = (String) row[1];
+            // Keep the newest session if the table holds more than one for a user
+            byUserId.merge(userId, new ActiveSession((Long) row[0], userId, (String) row[2], (LocalDateTime) row[3]),
+                (current, candidate) -> candidate.getLoginTime().isAfter(current.getLoginTime()) ? candidate : current);
+        }
+    }
+
+    /**
+     * Time Complexity: O(1)
+     */
+    public ActiveSession get(String userId) {
+        return byUserId.get(userId);
+    }
+
+    public boolean contains(String userId) {
+        return byUserId.containsKey(userId);
+    }
+
+    public void put(ActiveSession session) {
+        byUserId.put(session.getUserId(), session);
+    }
+
+    /**
+     * Indexes the session unless the user already has one; returns the existing entry, or
+     * null if the session was indexed
+     */
+    public ActiveSession putIfAbsent(ActiveSession session) {
+        return byUserId.putIfAbsent(session.getUserId(), session);
+    }
+
+    /**
+     * Removes the user's entry; returns it, or null if the user had no active session
+     */
+    public ActiveSession remove(String userId) {
+        return byUserId.remove(userId);
+    }
+
+    /**
+     * Removes the entry only if it is still the given session
+     */
+    public boolean remove(ActiveSession session) {
+        return byUserId.remove(session.getUserId(), session);
+    }
+
+    /**
+     * Replaces the entry only if it is still the given session
+     */
+    public boolean replace(ActiveSession current, ActiveSession updated) {
+        return byUserId.replace(current.getUserId(), current, updated);
+    }
+
+    public void clear() {
+        byUserId.clear();
+    }
+
+    /**
+     * Number of active sessions
+     * Time Complexity: O(1)
+     */
+    public int size() {
+        return byUserId.size();
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.practical11;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes incremental changes to Server-Sent Events subscribers
+ * Publishes "user" events (upsert/remove, from MonitoringSystem) and "session" events
+ * (started/ended/deleted, from UserSessionService) so the dashboard can apply deltas
+ * instead of re-downloading the full lists
+ *
+ * Each subscriber has a bounded queue, drained by a small pool of sender threads.
+ * Publishing never blocks: when a slow subscriber's queue is full its pending events are
+ * dropped and it is sent a single "resync" event instead, telling it to reload the lists
+ */
+@Component
+public class ChangeEventBus implements AccessHistoryListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeEventBus.class);
+
+    public static final String USER = "user";
+    public static final String SESSION = "session";
+    public static final String RESYNC = "resync";
+
+    @Value("${events.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    @Value("${events.sender-threads:2}")
+    private int senderThreads;
+
+    @Value("${events.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${events.timeout-ms:0}")
+    private long timeoutMs;
+
+    @Autowired
+    private MonitoringSystem monitoringSystem;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private ScheduledExecutorService senders;
+
+    /**
+     * One change, serialized at most once however many subscribers receive it
+     */
+    private final class ChangeEvent {
+        final long id;
+        final String name;
+        final Map<String, Object> data;
+        private volatile String json;
+
+        ChangeEvent(String name, Map<String, Object> data) {
+            this.id = sequence.incrementAndGet();
+            this.name = name;
+            this.data = data;
+        }
+
+        String json() throws JsonProcessingException {
+            String rendered = json;
+            if (rendered == null) {
+                rendered = objectMapper.writeValueAsString(data);
+                json = rendered;
+            }
+            return rendered;
+        }
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<ChangeEvent> queue;
+        final AtomicBoolean overflowed = new AtomicBoolean();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        }
+
+        void offer(ChangeEvent event) {
+            if (!queue.offer(event)) {
+                // Too far behind to catch up from deltas; replace the backlog with a resync
+                queue.clear();
+                overflowed.set(true);
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    if (overflowed.getAndSet(false)) {
+                        emitter.send(SseEmitter.event().id(String.valueOf(sequence.get())).name(RESYNC).data("{}"));
+                        continue;
+                    }
+                    ChangeEvent event = queue.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    emitter.send(SseEmitter.event().id(String.valueOf(event.id)).name(event.name).data(event.json()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping event subscriber: {}", e.toString());
+                close(); // Client went away
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event may have arrived after the last poll but before draining was cleared
+            if (!queue.isEmpty() || overflowed.get()) {
+                scheduleDrain();
+            }
+        }
+
+        void heartbeat() {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        senders = Executors.newScheduledThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        senders.scheduleWithFixedDelay(() -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.heartbeat();
+            }
+        }, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        monitoringSystem.addListener(this);
+    }
+
+    /**
+     * Opens a new event stream
+     * Events start from the moment of subscription; clients load the current lists first
+     * (or on "resync") and then apply events as they arrive; events for any one user
+     * arrive in the order they happened
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Runs under MonitoringSystem's per-user lock; only builds the event and enqueues it
+     */
+    @Override
+    public void onUpsert(AccessHistory history) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("userId", history.getUserId());
+        user.put("name", history.getName());
+        user.put("email", history.getEmail());
+        user.put("department", history.getDepartment());
+        user.put("lastLoginTime", history.getLastLoginTimeISO());
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("action", "upsert");
+        data.put("user", user);
+        publish(USER, data);
+    }
+
+    @Override
+    public void onRemove(String userId) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("action", "remove");
+        data.put("userId", userId);
+        publish(USER, data);
+    }
+
+    public void sessionStarted(Long id, String userId, String department, LocalDateTime loginTime) {
+        publishSession("started", id, userId, department, loginTime, null);
+    }
+
+    public void sessionEnded(Long id, String userId, String department, LocalDateTime loginTime, LocalDateTime logoutTime) {
+        publishSession("ended", id, userId, department, loginTime, logoutTime);
+    }
+
+    /**
+     * All of a user's sessions were deleted
+     */
+    public void sessionsDeleted(String userId) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("action", "deleted");
+        data.put("userId", userId);
+        publish(SESSION, data);
+    }
+
+    private void publishSession(String action, Long id, String userId, String department,
+                                LocalDateTime loginTime, LocalDateTime logoutTime) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("action", action);
+        data.put("id", id); // null while a write-behind insert is pending
+        data.put("userId", userId);
+        data.put("department", department);
+        data.put("loginTime", loginTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        data.put("logoutTime", logoutTime != null ? logoutTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null);
+        publish(SESSION, data);
+    }
+
+    private void publish(String name, Map<String, Object> data) {
+        ChangeEvent event = new ChangeEvent(name, data);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        monitoringSystem.removeListener(this);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+    }
+}
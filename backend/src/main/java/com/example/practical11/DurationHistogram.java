@@ -0,0 +1,125 @@
+package com.example.practical11;
+
+import java.util.Arrays;
+
+/**
+ * Streaming histogram of non-negative values with bounded relative error (HdrHistogram-style)
+ * Values are bucketed log-linearly: each power of two is split into 2^subBucketBits
+ * equal sub-buckets, so a reported value is within 1 / 2^subBucketBits of the true one
+ * (about 3% for 5 bits) however many values were recorded
+ * The bucket array grows only up to the largest value seen, so small histograms stay small
+ *
+ * Thread-safe; recording and percentile queries are O(1) in the number of values
+ */
+public class DurationHistogram {
+
+    private final int subBucketBits;
+    private final int subBucketCount;
+
+    // Guarded by this
+    private long[] counts = new long[0];
+    private long totalCount;
+    private long sum;
+    private long max;
+
+    public DurationHistogram(int subBucketBits) {
+        if (subBucketBits < 1 || subBucketBits > 10) {
+            throw new IllegalArgumentException("subBucketBits must be in 1..10: " + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+    }
+
+    /**
+     * Records one value; negative values count as zero
+     * Time Complexity: O(1) amortized
+     */
+    public synchronized void record(long value) {
+        long v = Math.max(0, value);
+        int index = bucketIndex(v);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        totalCount++;
+        sum += v;
+        max = Math.max(max, v);
+    }
+
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Summary of the recorded values, taken atomically
+     * Time Complexity: O(buckets), independent of how many values were recorded
+     */
+    public synchronized Summary summary() {
+        return new Summary(totalCount, totalCount == 0 ? 0 : (double) sum / totalCount,
+            valueAtPercentile(50), valueAtPercentile(90), valueAtPercentile(99), max);
+    }
+
+    /**
+     * Smallest recorded-bucket value such that the given percentage of values are at or below it
+     */
+    public synchronized long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private int bucketIndex(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - subBucketBits;
+        long mantissa = value >>> shift; // In [subBucketCount, 2 * subBucketCount)
+        return (shift + 1) * subBucketCount + (int) (mantissa - subBucketCount);
+    }
+
+    private long bucketUpperBound(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = index / subBucketCount - 1;
+        long mantissa = subBucketCount + index % subBucketCount;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Immutable summary: count, mean and selected percentiles
+     */
+    public static class Summary {
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        public Summary(long count, double mean, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public long getP50() { return p50; }
+        public long getP90() { return p90; }
+        public long getP99() { return p99; }
+        public long getMax() { return max; }
+    }
+}
@@ -1,23 +1,37 @@
 package com.example.practical11;
 
+import java.util.Arrays;
+import java.util.Collection;
+
 /**
  * Custom dynamic array implementation to replace Java's ArrayList
  * Based on arrays and pointers as required
+ * Pass the exact expected size to the constructor to build the array with a single allocation;
+ * primitive columns should use IntDynamicArray / LongDynamicArray to avoid boxing
  */
 public class DynamicArray<T> {
     private Object[] array;
     private int size;
     private int capacity;
-    private static final int DEFAULT_CAPACITY = 5;
+    private final double growthFactor;
 
     public DynamicArray() {
-        this.capacity = DEFAULT_CAPACITY;
-        this.array = new Object[capacity];
-        this.size = 0;
+        this(GrowthPolicy.DEFAULT_CAPACITY);
     }
 
     public DynamicArray(int initialCapacity) {
+        this(initialCapacity, GrowthPolicy.DEFAULT_GROWTH_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity exact number of slots to allocate up front
+     * @param growthFactor    multiplier applied to the capacity when it is exhausted, must be > 1
+     */
+    public DynamicArray(int initialCapacity, double growthFactor) {
+        GrowthPolicy.checkInitialCapacity(initialCapacity);
+        GrowthPolicy.checkGrowthFactor(growthFactor);
         this.capacity = initialCapacity;
+        this.growthFactor = growthFactor;
         this.array = new Object[capacity];
         this.size = 0;
     }
@@ -45,6 +59,28 @@ public class DynamicArray<T> {
         size++;
     }
 
+    /**
+     * Appends all elements of another array with at most one reallocation
+     * Time Complexity: O(m)
+     */
+    public void addAll(DynamicArray<? extends T> other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.array, 0, array, size, count);
+        size += count;
+    }
+
+    /**
+     * Appends all elements of a collection with at most one reallocation
+     * Time Complexity: O(m)
+     */
+    public void addAll(Collection<? extends T> elements) {
+        ensureCapacity(size + elements.size());
+        for (T element : elements) {
+            add(element);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public T remove(int index) {
         if (index < 0 || index >= size) {
@@ -97,19 +133,58 @@ public class DynamicArray<T> {
         return indexOf(o) >= 0;
     }
 
-    private void ensureCapacity(int minCapacity) {
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Grows the backing array so it can hold at least minCapacity elements
+     * Time Complexity: O(n) when it reallocates, O(1) otherwise
+     */
+    public void ensureCapacity(int minCapacity) {
         if (minCapacity > capacity) {
-            int newCapacity = capacity * 2;
-            if (newCapacity < minCapacity) {
-                newCapacity = minCapacity;
-            }
-            Object[] newArray = new Object[newCapacity];
-            System.arraycopy(array, 0, newArray, 0, size);
-            array = newArray;
+            int newCapacity = GrowthPolicy.grow(capacity, minCapacity, growthFactor);
+            array = Arrays.copyOf(array, newCapacity);
             capacity = newCapacity;
         }
     }
 
+    /**
+     * Shrinks the backing array to the current size, releasing unused slots
+     * Time Complexity: O(n)
+     */
+    public void trimToSize() {
+        if (size < capacity) {
+            array = Arrays.copyOf(array, size);
+            capacity = size;
+        }
+    }
+
+    /**
+     * Returns a new array containing the elements in order
+     * Time Complexity: O(n)
+     */
+    public Object[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * Returns the elements in an array of the runtime type of the given one,
+     * reusing it when it is large enough
+     * Time Complexity: O(n)
+     */
+    @SuppressWarnings("unchecked")
+    public <E> E[] toArray(E[] a) {
+        if (a.length < size) {
+            return (E[]) Arrays.copyOf(array, size, a.getClass());
+        }
+        System.arraycopy(array, 0, a, 0, size);
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
     @Override
     public String toString() {
         if (size == 0) {
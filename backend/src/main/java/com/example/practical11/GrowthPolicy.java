@@ -0,0 +1,39 @@
+package com.example.practical11;
+
+/**
+ * Capacity growth rules shared by the dynamic array implementations
+ */
+final class GrowthPolicy {
+    static final int DEFAULT_CAPACITY = 5;
+    static final double DEFAULT_GROWTH_FACTOR = 2.0;
+
+    // Some VMs reserve header words in an array, so stay a little below Integer.MAX_VALUE
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private GrowthPolicy() {
+    }
+
+    static void checkInitialCapacity(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+    }
+
+    static void checkGrowthFactor(double growthFactor) {
+        if (!(growthFactor > 1.0)) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1: " + growthFactor);
+        }
+    }
+
+    /**
+     * Computes the next capacity: current capacity scaled by the growth factor,
+     * but never less than the required minimum
+     */
+    static int grow(int capacity, int minCapacity, double growthFactor) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required array length too large: " + minCapacity);
+        }
+        long scaled = (long) (capacity * growthFactor);
+        return (int) Math.min(MAX_CAPACITY, Math.max(scaled, minCapacity));
+    }
+}
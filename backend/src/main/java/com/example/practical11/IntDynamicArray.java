@@ -0,0 +1,189 @@
+package com.example.practical11;
+
+import java.util.Arrays;
+
+/**
+ * DynamicArray specialized for int values
+ * Stores elements in a primitive int[] so no values are boxed
+ */
+public class IntDynamicArray {
+    private int[] array;
+    private int size;
+    private int capacity;
+    private final double growthFactor;
+
+    public IntDynamicArray() {
+        this(GrowthPolicy.DEFAULT_CAPACITY);
+    }
+
+    public IntDynamicArray(int initialCapacity) {
+        this(initialCapacity, GrowthPolicy.DEFAULT_GROWTH_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity exact number of slots to allocate up front
+     * @param growthFactor    multiplier applied to the capacity when it is exhausted, must be > 1
+     */
+    public IntDynamicArray(int initialCapacity, double growthFactor) {
+        GrowthPolicy.checkInitialCapacity(initialCapacity);
+        GrowthPolicy.checkGrowthFactor(growthFactor);
+        this.capacity = initialCapacity;
+        this.growthFactor = growthFactor;
+        this.array = new int[capacity];
+        this.size = 0;
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return array[index];
+    }
+
+    public int set(int index, int value) {
+        checkIndex(index);
+        int old = array[index];
+        array[index] = value;
+        return old;
+    }
+
+    public void add(int value) {
+        ensureCapacity(size + 1);
+        array[size++] = value;
+    }
+
+    public void add(int index, int value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+        size++;
+    }
+
+    /**
+     * Appends all values with at most one reallocation
+     * Time Complexity: O(m)
+     */
+    public void addAll(int[] values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, array, size, values.length);
+        size += values.length;
+    }
+
+    /**
+     * Appends all values of another array with at most one reallocation
+     * Time Complexity: O(m)
+     */
+    public void addAll(IntDynamicArray other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.array, 0, array, size, count);
+        size += count;
+    }
+
+    /**
+     * Removes the value at the given index and returns it
+     * Time Complexity: O(n)
+     */
+    public int remove(int index) {
+        checkIndex(index);
+        int removed = array[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(array, index + 1, array, index, numMoved);
+        }
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Sorts the values in ascending order
+     * Time Complexity: O(n log n)
+     */
+    public void sort() {
+        Arrays.sort(array, 0, size);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Grows the backing array so it can hold at least minCapacity values
+     * Time Complexity: O(n) when it reallocates, O(1) otherwise
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            int newCapacity = GrowthPolicy.grow(capacity, minCapacity, growthFactor);
+            array = Arrays.copyOf(array, newCapacity);
+            capacity = newCapacity;
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the current size, releasing unused slots
+     * Time Complexity: O(n)
+     */
+    public void trimToSize() {
+        if (size < capacity) {
+            array = Arrays.copyOf(array, size);
+            capacity = size;
+        }
+    }
+
+    /**
+     * Returns a new array containing the values in order
+     * Time Complexity: O(n)
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < size; i++) {
+            sb.append(array[i]);
+            if (i < size - 1) {
+                sb.append(", ");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
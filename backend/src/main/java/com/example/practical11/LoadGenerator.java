@@ -0,0 +1,358 @@
+package com.example.practical11;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for login storms (run through UserActivity with "load")
+ * Plays a LoadTrace, synthesized or recorded, against one of three targets:
+ * monitoring (a bare MonitoringSystem), service (MonitoringSystem + UserSessionService in
+ * an in-process application context with an in-memory database) or rest (a running server)
+ *
+ * Every event has an intended start time and is issued on schedule whether or not earlier
+ * events have finished. Latency is reported twice: from the intended start (corrected for
+ * coordinated omission, so time spent queued behind a slow event counts) and from the
+ * actual start (service time only). When the two diverge the target cannot keep up with
+ * the offered rate
+ */
+public class LoadGenerator {
+
+    // ~0.8% relative error
+    private static final int HISTOGRAM_PRECISION_BITS = 7;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    /**
+     * Where events are applied; returns false when the target declines the event
+     * (duplicate registration, logout without a session, ...), throws on failure
+     */
+    interface Target extends AutoCloseable {
+        boolean apply(LoadTrace.Event event) throws Exception;
+
+        @Override
+        default void close() {
+        }
+    }
+
+    private final Target target;
+    private final int threads;
+
+    private final DurationHistogram correctedMicros = new DurationHistogram(HISTOGRAM_PRECISION_BITS);
+    private final DurationHistogram serviceMicros = new DurationHistogram(HISTOGRAM_PRECISION_BITS);
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong declined = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lastCompletion = new AtomicLong();
+    private long runStart;
+
+    LoadGenerator(Target target, int threads) {
+        this.target = target;
+        this.threads = threads;
+    }
+
+    static void printUsage() {
+        System.out.println("Usage: UserActivity load [options]");
+        System.out.println("  --target monitoring|service|rest   where to apply events (default monitoring)");
+        System.out.println("  --url http://localhost:8080        server for --target rest");
+        System.out.println("  --shards N                         shards for --target monitoring (default 1)");
+        System.out.println("  --rate R --duration S              synthesize R events/s for S seconds (default 1000, 30)");
+        System.out.println("  --mix register:login:logout        operation weights (default 5:60:35)");
+        System.out.println("  --users N                          users registered before the run (default 1000)");
+        System.out.println("  --seed N                           random seed for synthesis (default 42)");
+        System.out.println("  --trace FILE [--speed X]           replay a recorded trace instead, X times faster");
+        System.out.println("  --record FILE                      save the synthesized trace for replay");
+        System.out.println("  --threads N                        concurrent executors (default 32)");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                printUsage();
+                return;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        LoadTrace trace;
+        if (options.containsKey("trace")) {
+            double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+            trace = LoadTrace.read(Paths.get(options.get("trace")), speed);
+        } else {
+            String[] mix = options.getOrDefault("mix", "5:60:35").split(":");
+            if (mix.length != 3) {
+                throw new IllegalArgumentException("--mix must be register:login:logout, e.g. 5:60:35");
+            }
+            trace = LoadTrace.synthesize(
+                Double.parseDouble(options.getOrDefault("rate", "1000")),
+                Integer.parseInt(options.getOrDefault("duration", "30")),
+                users, Integer.parseInt(mix[0]), Integer.parseInt(mix[1]), Integer.parseInt(mix[2]),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+            if (options.containsKey("record")) {
+                trace.write(Paths.get(options.get("record")));
+                System.out.println("Recorded " + trace.size() + " events to " + options.get("record"));
+            }
+        }
+
+        String targetName = options.getOrDefault("target", "monitoring");
+        int threads = Integer.parseInt(options.getOrDefault("threads", "32"));
+        try (Target target = createTarget(targetName, options)) {
+            LoadGenerator generator = new LoadGenerator(target, threads);
+            generator.registerUsers(users);
+            generator.run(trace);
+            generator.report(targetName, trace);
+        }
+    }
+
+    private static Target createTarget(String name, Map<String, String> options) {
+        switch (name) {
+            case "monitoring":
+                int shards = Integer.parseInt(options.getOrDefault("shards", "1"));
+                return new MonitoringTarget(shards > 1
+                    ? new ShardedMonitoringSystem("Load Test", shards)
+                    : new MonitoringSystem("Load Test"));
+            case "service":
+                return new ServiceTarget();
+            case "rest":
+                return new RestTarget(options.getOrDefault("url", "http://localhost:8080"));
+            default:
+                throw new IllegalArgumentException("Unknown target: " + name);
+        }
+    }
+
+    /**
+     * Registers the users the trace refers to, in parallel and untimed
+     */
+    void registerUsers(int users) throws Exception {
+        ExecutorService workers = newWorkers();
+        try {
+            List<Future<Boolean>> registrations = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                LoadTrace.Event event = new LoadTrace.Event(0, LoadTrace.Type.REGISTER,
+                    LoadTrace.userId(i), LoadTrace.department(i));
+                registrations.add(workers.submit(() -> target.apply(event)));
+            }
+            for (Future<Boolean> registration : registrations) {
+                registration.get(); // Declined (already registered) is fine
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Issues every event at its intended time and waits for all of them to complete
+     */
+    void run(LoadTrace trace) throws InterruptedException {
+        ExecutorService workers = newWorkers();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        runStart = start;
+        lastCompletion.set(start);
+        for (LoadTrace.Event event : trace.getEvents()) {
+            long intended = start + TimeUnit.MICROSECONDS.toNanos(event.getOffsetMicros());
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            workers.execute(() -> execute(event, intended));
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void execute(LoadTrace.Event event, long intended) {
+        long begin = System.nanoTime();
+        try {
+            if (target.apply(event)) {
+                accepted.incrementAndGet();
+            } else {
+                declined.incrementAndGet();
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+        }
+        long end = System.nanoTime();
+        correctedMicros.record((end - intended) / 1000);
+        serviceMicros.record((end - begin) / 1000);
+        lastCompletion.accumulateAndGet(end, Math::max);
+    }
+
+    private ExecutorService newWorkers() {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void report(String targetName, LoadTrace trace) {
+        long events = trace.size();
+        double seconds = Math.max(1, lastCompletion.get() - runStart) / 1e9;
+        double scheduledSeconds = events == 0 ? 0
+            : trace.getEvents().get(trace.size() - 1).getOffsetMicros() / 1e6;
+
+        System.out.println("=== Load run: target=" + targetName + ", events=" + events + ", threads=" + threads + " ===");
+        System.out.printf(Locale.ROOT, "Throughput: %.1f ops/s (offered %.1f ops/s)%n",
+            events / seconds, scheduledSeconds > 0 ? events / scheduledSeconds : 0.0);
+        System.out.println("Outcomes: accepted=" + accepted.get() + ", declined=" + declined.get()
+            + ", failed=" + failed.get());
+        System.out.println("Latency (ms)         p50       p90       p99     p99.9    p99.99       max");
+        printLatency("corrected", correctedMicros);
+        printLatency("service time", serviceMicros);
+    }
+
+    private static void printLatency(String label, DurationHistogram histogram) {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-14s", label));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(Locale.ROOT, "%10.3f", histogram.valueAtPercentile(percentile) / 1000.0));
+        }
+        line.append(String.format(Locale.ROOT, "%10.3f", histogram.summary().getMax() / 1000.0));
+        System.out.println(line);
+    }
+
+    /**
+     * A bare MonitoringSystem: register adds the user, login refreshes the last login time of
+     * a registered user, logout (which MonitoringSystem has no notion of) is a lookup
+     */
+    static final class MonitoringTarget implements Target {
+        private final MonitoringSystem system;
+
+        MonitoringTarget(MonitoringSystem system) {
+            this.system = system;
+        }
+
+        @Override
+        public boolean apply(LoadTrace.Event event) {
+            switch (event.getType()) {
+                case REGISTER:
+                    return system.addUser(newUser(event));
+                case LOGIN:
+                    return system.refreshLogins(Collections.singletonMap(event.getUserId(), LocalDateTime.now())) > 0;
+                default:
+                    return system.getUserHistory(event.getUserId()) != null;
+            }
+        }
+    }
+
+    /**
+     * The application's MonitoringSystem and UserSessionService in an in-process context
+     * without a web server, on an in-memory database so a running server is not disturbed
+     */
+    static final class ServiceTarget implements Target {
+        private final ConfigurableApplicationContext context;
+        private final MonitoringSystem system;
+        private final UserSessionService sessions;
+
+        ServiceTarget() {
+            context = new SpringApplicationBuilder(Practical11Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:load-test",
+                    "--spring.jpa.show-sql=false",
+                    "--monitoring.persistence.enabled=false");
+            system = context.getBean(MonitoringSystem.class);
+            sessions = context.getBean(UserSessionService.class);
+        }
+
+        @Override
+        public boolean apply(LoadTrace.Event event) {
+            switch (event.getType()) {
+                case REGISTER:
+                    return system.addUser(newUser(event));
+                case LOGIN:
+                    AccessHistory registered = system.getUserHistory(event.getUserId());
+                    if (registered == null) {
+                        return false;
+                    }
+                    sessions.startSession(event.getUserId(), registered.getDepartment());
+                    return true;
+                default:
+                    return sessions.endSession(event.getUserId());
+            }
+        }
+
+        @Override
+        public void close() {
+            context.close();
+        }
+    }
+
+    /**
+     * A running server, through its REST API; 2xx is accepted, other statuses are declined
+     * (and counted per status), connection failures and timeouts fail
+     */
+    static final class RestTarget implements Target {
+        private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        private final String baseUrl;
+        private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+        RestTarget(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public boolean apply(LoadTrace.Event event) throws Exception {
+            String path;
+            String body;
+            switch (event.getType()) {
+                case REGISTER:
+                    AccessHistory user = newUser(event);
+                    path = "/api/access-history";
+                    body = "{\"userId\":\"" + user.getUserId() + "\",\"name\":\"" + user.getName()
+                        + "\",\"email\":\"" + user.getEmail() + "\",\"department\":\"" + user.getDepartment() + "\"}";
+                    break;
+                case LOGIN:
+                    path = "/api/sessions/login";
+                    body = "{\"userId\":\"" + event.getUserId() + "\"}";
+                    break;
+                default:
+                    path = "/api/sessions/logout";
+                    body = "{\"userId\":\"" + event.getUserId() + "\"}";
+                    break;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            statuses.computeIfAbsent(status, code -> new AtomicLong()).incrementAndGet();
+            return status >= 200 && status < 300;
+        }
+
+        @Override
+        public void close() {
+            System.out.println("HTTP statuses: " + statuses);
+        }
+    }
+
+    private static AccessHistory newUser(LoadTrace.Event event) {
+        String department = event.getDepartment() != null ? event.getDepartment() : "load";
+        return new AccessHistory(event.getUserId(), "Load " + event.getUserId(),
+            event.getUserId() + "@example.com", department);
+    }
+}
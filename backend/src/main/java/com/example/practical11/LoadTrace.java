@@ -0,0 +1,141 @@
+package com.example.practical11;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A timed sequence of register/login/logout events for the load generator
+ * Traces are either synthesized at a fixed rate from an operation mix or read from a CSV
+ * recording (offset_us,type,userId,department), so the same traffic can be replayed
+ * against different targets and builds
+ */
+public class LoadTrace {
+
+    public enum Type { REGISTER, LOGIN, LOGOUT }
+
+    /**
+     * One event, due offsetMicros after the start of the run
+     */
+    public static final class Event {
+        private final long offsetMicros;
+        private final Type type;
+        private final String userId;
+        private final String department;
+
+        public Event(long offsetMicros, Type type, String userId, String department) {
+            this.offsetMicros = offsetMicros;
+            this.type = type;
+            this.userId = userId;
+            this.department = department;
+        }
+
+        public long getOffsetMicros() { return offsetMicros; }
+        public Type getType() { return type; }
+        public String getUserId() { return userId; }
+        public String getDepartment() { return department; }
+    }
+
+    private static final String HEADER = "offset_us,type,userId,department";
+
+    private final List<Event> events;
+
+    public LoadTrace(List<Event> events) {
+        this.events = events;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    static String userId(int i) {
+        return "user-" + i;
+    }
+
+    static String department(int i) {
+        return "dept-" + (i % 16);
+    }
+
+    /**
+     * Events at a constant rate for the given duration; each picks its type by the
+     * register:login:logout weights. Logins and logouts go to random known users;
+     * registrations create users knownUsers, knownUsers + 1, ...
+     * Time Complexity: O(rate * seconds)
+     */
+    public static LoadTrace synthesize(double ratePerSecond, int seconds, int knownUsers,
+                                       int registerWeight, int loginWeight, int logoutWeight, long seed) {
+        Random random = new Random(seed);
+        int count = (int) Math.min(Integer.MAX_VALUE, (long) (ratePerSecond * seconds));
+        int totalWeight = registerWeight + loginWeight + logoutWeight;
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Operation mix must have a positive weight");
+        }
+        List<Event> events = new ArrayList<>(count);
+        int users = knownUsers;
+        for (int i = 0; i < count; i++) {
+            long offset = (long) (i * 1_000_000L / ratePerSecond);
+            int pick = random.nextInt(totalWeight);
+            if (pick < registerWeight || users == 0) {
+                events.add(new Event(offset, Type.REGISTER, userId(users), department(users)));
+                users++;
+            } else {
+                int user = random.nextInt(users);
+                Type type = pick < registerWeight + loginWeight ? Type.LOGIN : Type.LOGOUT;
+                events.add(new Event(offset, type, userId(user), department(user)));
+            }
+        }
+        return new LoadTrace(events);
+    }
+
+    /**
+     * Reads a recorded trace; speed > 1 replays it faster than recorded
+     */
+    public static LoadTrace read(Path path, double speed) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line == null || !line.trim().equals(HEADER)) {
+                throw new IOException("Not a load trace (expected header " + HEADER + "): " + path);
+            }
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != 4) {
+                    throw new IOException("Line " + lineNumber + ": expected 4 fields");
+                }
+                long offset = (long) (Long.parseLong(fields[0].trim()) / speed);
+                events.add(new Event(offset, Type.valueOf(fields[1].trim()), fields[2].trim(),
+                    fields[3].trim().isEmpty() ? null : fields[3].trim()));
+            }
+        }
+        events.sort(Comparator.comparingLong(Event::getOffsetMicros)); // Stable: ties keep file order
+        return new LoadTrace(events);
+    }
+
+    public void write(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Event event : events) {
+                writer.write(event.offsetMicros + "," + event.type + "," + event.userId + ","
+                    + (event.department == null ? "" : event.department));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.practical11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous ingestion pipeline for login/logout requests
+ * Requests publish events into bounded lock-free ring buffers (MpscRingBuffer), sharded by
+ * userId so one user's events stay in order; each shard has a single consumer thread that
+ * applies whatever has accumulated as one batch: the session changes in one transaction,
+ * then the users' last login times in MonitoringSystem in one epoch
+ *
+ * Ack semantics (sessions.ingestion.ack):
+ * ENQUEUED answers as soon as the event is in the buffer; APPLIED waits until its batch has
+ * committed. A full buffer is reported to the caller, which answers 429, rather than
+ * queueing without bound
+ *
+ * Enabled with sessions.ingestion.enabled=true; otherwise logins are handled on the request thread
+ */
+@Component
+public class LoginIngestion {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginIngestion.class);
+
+    // Consumers park this long when idle unless a producer wakes them first
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public enum Ack {
+        /** Acknowledge once the event is buffered; it is applied shortly after */
+        ENQUEUED,
+        /** Acknowledge once the event's batch has committed */
+        APPLIED
+    }
+
+    public enum Outcome {
+        /** The buffer was full; nothing was recorded */
+        REJECTED,
+        /** Buffered, not yet applied (ENQUEUED) */
+        ACCEPTED,
+        /** Applied; see Submission.getResult() */
+        APPLIED,
+        /** Buffered but not applied within the ack timeout; it may still be applied */
+        TIMED_OUT,
+        /** Applying the event failed */
+        FAILED
+    }
+
+    /**
+     * What a caller learns about its submitted event
+     */
+    public static final class Submission {
+        private final Outcome outcome;
+        private final Object result;
+
+        private Submission(Outcome outcome, Object result) {
+            this.outcome = outcome;
+            this.result = result;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+
+        /**
+         * For APPLIED: the UserSessionEntity of a login, or whether a logout ended a session;
+         * for FAILED: the exception
+         */
+        public Object getResult() { return result; }
+    }
+
+    @Value("${sessions.ingestion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sessions.ingestion.shards:4}")
+    private int shardCount;
+
+    @Value("${sessions.ingestion.buffer-size:4096}")
+    private int bufferSize;
+
+    @Value("${sessions.ingestion.batch-size:256}")
+    private int batchSize;
+
+    @Value("${sessions.ingestion.ack:ENQUEUED}")
+    private Ack ack;
+
+    @Value("${sessions.ingestion.ack-timeout-ms:5000}")
+    private long ackTimeoutMs;
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @Autowired
+    private MonitoringSystem monitoringSystem;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate batchTransaction;
+    private Shard[] shards;
+    private volatile boolean running;
+
+    private static final class LoginEvent {
+        final boolean login;
+        final String userId;
+        final String department;
+        final CompletableFuture<Object> applied; // null with Ack.ENQUEUED
+
+        LoginEvent(boolean login, String userId, String department, boolean tracked) {
+            this.login = login;
+            this.userId = userId;
+            this.department = department;
+            this.applied = tracked ? new CompletableFuture<>() : null;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        final MpscRingBuffer<LoginEvent> buffer = new MpscRingBuffer<>(bufferSize);
+        // Producers between their running check and their offer; see submit()
+        final AtomicInteger publishing = new AtomicInteger();
+        final Thread consumer;
+        volatile boolean idle;
+
+        Shard(int index) {
+            consumer = new Thread(this, "login-ingestion-" + index);
+            consumer.setDaemon(true);
+        }
+
+        boolean offer(LoginEvent event) {
+            if (!buffer.offer(event)) {
+                return false;
+            }
+            if (idle) {
+                LockSupport.unpark(consumer);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            List<LoginEvent> batch = new ArrayList<>(batchSize);
+            while (true) {
+                batch.clear();
+                if (buffer.drainTo(batch, batchSize) > 0) {
+                    try {
+                        applyBatch(batch);
+                    } catch (RuntimeException e) {
+                        log.error("Failed to apply a login batch of {}", batch.size(), e);
+                    }
+                    continue;
+                }
+                // A producer that saw running == true may still be about to offer: exit only
+                // once none is in flight and what they offered has been drained
+                if (!running && publishing.get() == 0 && buffer.isEmpty()) {
+                    return; // Stopped and fully drained
+                }
+                idle = true;
+                if (buffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        batchTransaction = new TransactionTemplate(transactionManager);
+        running = true;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].consumer.start();
+        }
+    }
+
+    /**
+     * Stops accepting events and waits for the consumers to apply what is buffered
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.consumer);
+            shard.consumer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public Submission login(String userId, String department) {
+        return submit(new LoginEvent(true, userId, department, ack == Ack.APPLIED));
+    }
+
+    public Submission logout(String userId) {
+        return submit(new LoginEvent(false, userId, null, ack == Ack.APPLIED));
+    }
+
+    /**
+     * Events buffered across all shards, not yet applied
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        if (shards != null) {
+            for (Shard shard : shards) {
+                backlog += shard.buffer.size();
+            }
+        }
+        return backlog;
+    }
+
+    private Submission submit(LoginEvent event) {
+        Shard shard = shardFor(event.userId);
+        // Announce the offer before checking running: stop() clears running first, so either
+        // this sees it cleared and rejects, or the consumer sees the offer and stays to apply it
+        shard.publishing.incrementAndGet();
+        boolean offered;
+        try {
+            offered = running && shard.offer(event);
+        } finally {
+            shard.publishing.decrementAndGet();
+        }
+        if (!offered) {
+            return new Submission(Outcome.REJECTED, null);
+        }
+        if (event.applied == null) {
+            return new Submission(Outcome.ACCEPTED, null);
+        }
+        try {
+            return new Submission(Outcome.APPLIED, event.applied.get(ackTimeoutMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            return new Submission(Outcome.TIMED_OUT, null);
+        } catch (ExecutionException e) {
+            return new Submission(Outcome.FAILED, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Submission(Outcome.TIMED_OUT, null);
+        }
+    }
+
+    private Shard shardFor(String userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16);
+        return shards[(h & Integer.MAX_VALUE) % shards.length];
+    }
+
+    /**
+     * Applies a batch in one transaction; if that fails, falls back to one transaction per
+     * event so a single bad event does not fail the others
+     */
+    private void applyBatch(List<LoginEvent> batch) {
+        Object[] results = new Object[batch.size()];
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    results[i] = apply(batch.get(i));
+                }
+            });
+        } catch (RuntimeException batchFailure) {
+            log.warn("Login batch of {} failed, applying events one by one", batch.size(), batchFailure);
+            for (int i = 0; i < batch.size(); i++) {
+                LoginEvent event = batch.get(i);
+                try {
+                    results[i] = batchTransaction.execute(status -> apply(event));
+                } catch (RuntimeException e) {
+                    log.warn("Dropping {} event for user {}", event.login ? "login" : "logout", event.userId, e);
+                    results[i] = e;
+                }
+            }
+        }
+
+        try {
+            // Newest login per user, at the login time the session recorded, applied to the
+            // access list in one epoch
+            Map<String, LocalDateTime> logins = new LinkedHashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (results[i] instanceof UserSessionEntity) {
+                    logins.put(batch.get(i).userId, ((UserSessionEntity) results[i]).getLoginTime());
+                }
+            }
+            if (!logins.isEmpty()) {
+                monitoringSystem.refreshLogins(logins);
+            }
+        } finally {
+            // The sessions are committed either way; waiting callers must not hang on the access list
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<Object> applied = batch.get(i).applied;
+                if (applied != null) {
+                    if (results[i] instanceof RuntimeException) {
+                        applied.completeExceptionally((RuntimeException) results[i]);
+                    } else {
+                        applied.complete(results[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private Object apply(LoginEvent event) {
+        return event.login
+            ? userSessionService.startSession(event.userId, event.department)
+            : (Object) userSessionService.endSession(event.userId);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.practical11;
+
+import java.util.Arrays;
+
+/**
+ * DynamicArray specialized for long values (e.g. epoch-millis timestamps)
+ * Stores elements in a primitive long[] so no values are boxed
+ */
+public class LongDynamicArray {
+    private long[] array;
+    private int size;
+    private int capacity;
+    private final double growthFactor;
+
+    public LongDynamicArray() {
+        this(GrowthPolicy.DEFAULT_CAPACITY);
+    }
+
+    public LongDynamicArray(int initialCapacity) {
+        this(initialCapacity, GrowthPolicy.DEFAULT_GROWTH_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity exact number of slots to allocate up front
+     * @param growthFactor    multiplier applied to the capacity when it is exhausted, must be > 1
+     */
+    public LongDynamicArray(int initialCapacity, double growthFactor) {
+        GrowthPolicy.checkInitialCapacity(initialCapacity);
+        GrowthPolicy.checkGrowthFactor(growthFactor);
+        this.capacity = initialCapacity;
+        this.growthFactor = growthFactor;
+        this.array = new long[capacity];
+        this.size = 0;
+    }
+
+    public long get(int index) {
+        checkIndex(index);
+        return array[index];
+    }
+
+    public long set(int index, long value) {
+        checkIndex(index);
+        long old = array[index];
+        array[index] = value;
+        return old;
+    }
+
+    public void add(long value) {
+        ensureCapacity(size + 1);
+        array[size++] = value;
+    }
+
+    public void add(int index, long value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+        size++;
+    }
+
+    /**
+     * Appends all values with at most one reallocation
+     * Time Complexity: O(m)
+     */
+    public void addAll(long[] values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, array, size, values.length);
+        size += values.length;
+    }
+
+    /**
+     * Appends all values of another array with at most one reallocation
+     * Time Complexity: O(m)
+     */
+    public void addAll(LongDynamicArray other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.array, 0, array, size, count);
+        size += count;
+    }
+
+    /**
+     * Removes the value at the given index and returns it
+     * Time Complexity: O(n)
+     */
+    public long remove(int index) {
+        checkIndex(index);
+        long removed = array[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(array, index + 1, array, index, numMoved);
+        }
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int indexOf(long value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Sorts the values in ascending order
+     * Time Complexity: O(n log n)
+     */
+    public void sort() {
+        Arrays.sort(array, 0, size);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Grows the backing array so it can hold at least minCapacity values
+     * Time Complexity: O(n) when it reallocates, O(1) otherwise
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            int newCapacity = GrowthPolicy.grow(capacity, minCapacity, growthFactor);
+            array = Arrays.copyOf(array, newCapacity);
+            capacity = newCapacity;
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the current size, releasing unused slots
+     * Time Complexity: O(n)
+     */
+    public void trimToSize() {
+        if (size < capacity) {
+            array = Arrays.copyOf(array, size);
+            capacity = size;
+        }
+    }
+
+    /**
+     * Returns a new array containing the values in order
+     * Time Complexity: O(n)
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < size; i++) {
+            sb.append(array[i]);
+            if (i < size - 1) {
+                sb.append(", ");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.practical11;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Provides the application-wide MonitoringSystem
+ * With monitoring.persistence.enabled (the default) registered users are restored from
+ * the AccessJournal at startup and every later change is journaled
+ * With monitoring.shards > 1 it is a ShardedMonitoringSystem with that many shards
+ */
+@Configuration
+public class MonitoringConfiguration {
+
+    @Value("${monitoring.shards:1}")
+    private int shards;
+
+    @Value("${monitoring.persistence.dir:./data/monitoring}")
+    private String persistenceDir;
+
+    @Value("${monitoring.persistence.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${monitoring.persistence.force-interval-ms:1000}")
+    private long forceIntervalMs;
+
+    @Value("${monitoring.persistence.snapshot-every:100000}")
+    private long snapshotEvery;
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "monitoring.persistence.enabled", havingValue = "true", matchIfMissing = true)
+    public AccessJournal accessJournal() {
+        return new AccessJournal(Paths.get(persistenceDir), segmentSizeMb * 1024 * 1024);
+    }
+
+    @Bean
+    public MonitoringSystem monitoringSystem(ObjectProvider<AccessJournal> accessJournal) throws IOException {
+        MonitoringSystem system = shards > 1
+            ? new ShardedMonitoringSystem("Web Access Monitoring System", shards)
+            : new MonitoringSystem("Web Access Monitoring System");
+        AccessJournal journal = accessJournal.getIfAvailable();
+        if (journal != null) {
+            system.addUsers(journal.recover()); // Before the listener, so recovery is not journaled again
+            system.addListener(journal);
+            journal.start(system, forceIntervalMs, snapshotEvery);
+        }
+        return system;
+    }
+}
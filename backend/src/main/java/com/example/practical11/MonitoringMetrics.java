@@ -0,0 +1,86 @@
+package com.example.practical11;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the monitoring and session hot paths as Micrometer meters (/actuator/prometheus)
+ * Every meter is function-based: it reads counters the components already maintain
+ * (OperationStats, sizes, capacity) when the registry is scraped, so nothing is recorded
+ * or allocated through Micrometer on the request path
+ *
+ * Per-method repository latency comes from Spring Boot's own spring.data.repository.invocations
+ * timer, which Actuator enables for every Spring Data repository
+ */
+@Component
+public class MonitoringMetrics implements MeterBinder {
+
+    @Autowired
+    private MonitoringSystem monitoringSystem;
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @Autowired
+    private SessionWriteBehind sessionWriteBehind;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    @Autowired
+    private LoginIngestion loginIngestion;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("monitoring.users", monitoringSystem, MonitoringSystem::getCurrentSize)
+            .description("Registered users in the access list")
+            .register(registry);
+        Gauge.builder("monitoring.capacity", monitoringSystem, MonitoringSystem::getCapacity)
+            .description("Users the access list's hash index is currently sized for")
+            .register(registry);
+        FunctionCounter.builder("monitoring.capacity.resizes", monitoringSystem, MonitoringSystem::getCapacityGrowths)
+            .tag("direction", "grow")
+            .register(registry);
+        FunctionCounter.builder("monitoring.capacity.resizes", monitoringSystem, MonitoringSystem::getCapacityShrinks)
+            .tag("direction", "shrink")
+            .register(registry);
+        timer(registry, "monitoring.add.user", monitoringSystem.getAddUserStats(),
+            "MonitoringSystem.addUser, including the wait for the user's lock");
+        timer(registry, "monitoring.snapshot.rebuild", monitoringSystem.getSnapshotStats(),
+            "Rebuilds of the shared access-list snapshot");
+
+        Gauge.builder("sessions.active", activeSessionIndex, ActiveSessionIndex::size)
+            .description("Users with an active session")
+            .register(registry);
+        timer(registry, "sessions.start", userSessionService.getStartSessionStats(),
+            "UserSessionService.startSession, excluding the commit");
+        timer(registry, "sessions.end", userSessionService.getEndSessionStats(),
+            "UserSessionService.endSession, excluding the commit");
+        timer(registry, "sessions.write.behind.flush", sessionWriteBehind.getFlushStats(),
+            "Write-behind batch flushes to the database");
+
+        Gauge.builder("sessions.ingestion.backlog", loginIngestion, LoginIngestion::getBacklog)
+            .description("Login/logout events buffered for ingestion, not yet applied")
+            .register(registry);
+
+        Gauge.builder("events.subscribers", changeEventBus, ChangeEventBus::getSubscriberCount)
+            .description("Open /api/events streams")
+            .register(registry);
+    }
+
+    private static void timer(MeterRegistry registry, String name, OperationStats stats, String description) {
+        FunctionTimer.builder(name, stats, OperationStats::getCount, OperationStats::getTotalNanos, TimeUnit.NANOSECONDS)
+            .description(description)
+            .register(registry);
+    }
+}
@@ -1,21 +1,116 @@
 package com.example.practical11;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
- * MonitoringSystem class that manages access history using arrays and pointers
- * Implements dynamic memory allocation when capacity is exhausted
- * Stores system name, access list array, current size, and capacity
+ * MonitoringSystem class that manages access history for registered users
+ * Backed by a RecencyIndex (userId hash index + recency-ordered structure) so that
+ * add, refresh, remove and lookup no longer scan or resort the whole list
+ * Stores system name, the access index, current size, and capacity
+ *
+ * Thread-safe: mutations are serialized per userId through striped locks, while
+ * lookups and iteration read the lock-free index and never block writers
+ *
+ * Readers that need the whole list use snapshot(): an immutable view tagged with the
+ * mutation epoch. It is rebuilt at most once per epoch and shared by all readers, so a
+ * dashboard refresh no longer copies the list per request
+ *
+ * Registered AccessHistoryListeners observe every mutation (used for persistence)
+ *
+ * The capacity is the number of users the index's hash tables are sized for: it doubles
+ * as users are added and, after removals, halves and rebuilds those tables so memory
+ * follows the live working set
+ *
+ * Operation latencies and capacity changes are counted for metrics export (see
+ * MonitoringMetrics) without allocating on the mutation path
  */
 public class MonitoringSystem {
-    private String systemName;
-    private AccessHistory[] accessList;
-    private int currentSize;
-    private int capacity;
+    private static final Logger log = LoggerFactory.getLogger(MonitoringSystem.class);
+
+    private static final int LOCK_STRIPES = 64; // Power of two so the stripe is a mask
+    private static final int MIN_CAPACITY = 5; // Default capacity for 5 unique users
+
+    private volatile String systemName;
+    private final RecencyIndex accessIndex;
+    private final ReentrantLock[] stripes;
+    private volatile int capacity;
+
+    // Epoch snapshot state: writers share the gate, a snapshot rebuild takes it exclusively
+    // so that the copied view is a consistent cut of the index
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final Lock writerGate = snapshotLock.readLock();
+    private volatile AccessSnapshot snapshot = AccessSnapshot.EMPTY;
+
+    private final CopyOnWriteArrayList<AccessHistoryListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final OperationStats addUserStats = new OperationStats();
+    private final OperationStats snapshotStats = new OperationStats();
+    private final AtomicLong capacityGrowths = new AtomicLong();
+    private final AtomicLong capacityShrinks = new AtomicLong();
 
     public MonitoringSystem(String systemName) {
         this.systemName = systemName;
-        this.capacity = 5; // Default capacity for 5 unique users
-        this.accessList = new AccessHistory[capacity];
-        this.currentSize = 0;
+        this.capacity = MIN_CAPACITY;
+        this.accessIndex = new RecencyIndex();
+        this.stripes = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gets the lock guarding all mutations of the given userId
+     */
+    private ReentrantLock stripeFor(String userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16); // Spread high bits, as HashMap does
+        return stripes[h & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Acquires the stripe for userId plus the shared writer gate
+     */
+    private ReentrantLock lockForWrite(String userId) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        writerGate.lock();
+        return lock;
+    }
+
+    private void unlockForWrite(ReentrantLock lock) {
+        writerGate.unlock();
+        lock.unlock();
+    }
+
+    /**
+     * Registers a listener for all subsequent mutations
+     */
+    public void addListener(AccessHistoryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AccessHistoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireUpsert(AccessHistory history) {
+        for (AccessHistoryListener listener : listeners) {
+            listener.onUpsert(history);
+        }
+    }
+
+    private void fireRemove(String userId) {
+        for (AccessHistoryListener listener : listeners) {
+            listener.onRemove(userId);
+        }
     }
 
     public String getSystemName() {
@@ -27,7 +122,7 @@ public class MonitoringSystem {
     }
 
     public int getCurrentSize() {
-        return currentSize;
+        return accessIndex.size();
     }
 
     public int getCapacity() {
@@ -35,152 +130,403 @@ public class MonitoringSystem {
     }
 
     /**
-     * Ensures the access list has enough capacity for new elements
-     * Doubles the array size when capacity is exhausted and copies existing elements
-     * Time Complexity: O(n) for copying elements
+     * Calls and latency of addUser, including waiting for the user's lock
+     */
+    public OperationStats getAddUserStats() {
+        return addUserStats;
+    }
+
+    /**
+     * Snapshot rebuilds (once per epoch that a reader asked for) and their latency
+     */
+    public OperationStats getSnapshotStats() {
+        return snapshotStats;
+    }
+
+    /**
+     * Number of times the capacity grew; a bulk insert that doubles it several times counts once
+     */
+    public long getCapacityGrowths() {
+        return capacityGrowths.get();
+    }
+
+    public long getCapacityShrinks() {
+        return capacityShrinks.get();
+    }
+
+    /**
+     * Ensures the reported capacity covers the next insertion
+     * Doubles the capacity when it is exhausted; the index itself grows incrementally
+     * Time Complexity: O(1)
      */
     private void ensureCapacity() {
-        if (currentSize >= capacity) {
-            int newCapacity = capacity * 2; // Double the size as required by Activity 2
-            AccessHistory[] newArray = new AccessHistory[newCapacity];
+        ensureCapacity(accessIndex.size() + 1);
+    }
+
+    /**
+     * Ensures the reported capacity covers the required number of users, doubling as often
+     * as needed; a bulk insert grows it once instead of once per doubling step
+     * Lock-free when the capacity already suffices; growing is synchronized because writers
+     * on different stripes may grow it concurrently
+     * Time Complexity: O(log(required / capacity))
+     */
+    private void ensureCapacity(int required) {
+        if (required > capacity) {
+            growCapacity(required);
+        }
+    }
 
-            // Copy existing elements to new array - O(n)
-            for (int i = 0; i < currentSize; i++) {
-                newArray[i] = accessList[i];
+    private synchronized void growCapacity(int required) {
+        if (required > capacity) {
+            int newCapacity = capacity;
+            while (newCapacity < required) {
+                newCapacity *= 2; // Double the size as required by Activity 2
             }
+            capacity = newCapacity;
+            capacityGrowths.incrementAndGet();
+        }
+    }
 
-            accessList = newArray;
+    /**
+     * Halves the capacity while at most a quarter of it is in use and rebuilds the index's
+     * hash tables at the new size, releasing the memory the peak left behind; the quarter
+     * threshold avoids flapping between growing and shrinking around a power of two
+     * Must be called without holding a stripe or the writer gate
+     * Time Complexity: O(1) unless it shrinks, then O(n) with writers excluded; a shrink
+     * follows at least n removals, so this is O(1) amortized per removal
+     */
+    private void shrinkCapacity() {
+        int oldCapacity;
+        int newCapacity;
+        synchronized (this) {
+            int size = accessIndex.size();
+            oldCapacity = capacity;
+            newCapacity = capacity;
+            while (newCapacity / 2 >= MIN_CAPACITY && size <= newCapacity / 4) {
+                newCapacity /= 2;
+            }
+            if (newCapacity == oldCapacity) {
+                return;
+            }
             capacity = newCapacity;
+            capacityShrinks.incrementAndGet();
+        }
 
-            System.out.println("DEBUG: Expanded access list capacity from " + (capacity/2) + " to " + capacity);
+        // Outside the monitor: growCapacity takes it while holding the writer gate
+        snapshotLock.writeLock().lock();
+        try {
+            accessIndex.resize(capacity);
+        } finally {
+            snapshotLock.writeLock().unlock();
         }
+        log.debug("Shrunk access list capacity from {} to {}", oldCapacity, newCapacity);
     }
 
     /**
      * Adds a unique user to the access list if not already present
-     * Maintains the access list in ascending order based on last login time
-     * Time Complexity: O(n) for search + O(n log n) for sort = O(n log n)
+     * An existing user has its last login time refreshed and moves to the newest end
+     * Time Complexity: O(1) lookup + O(log n) reposition = O(log n)
      */
     public boolean addUser(String userId) {
-        // Check if user already exists - O(n)
-        for (int i = 0; i < currentSize; i++) {
-            if (accessList[i].getUserId().equals(userId)) {
-                // Update last login time for existing user
-                accessList[i].setLastLoginTime(java.time.LocalDateTime.now());
-                sortAccessList();
+        long start = System.nanoTime();
+        ReentrantLock lock = lockForWrite(userId);
+        try {
+            // Existing user: update last login time - O(log n)
+            AccessHistory refreshed = accessIndex.refresh(userId, java.time.LocalDateTime.now());
+            if (refreshed != null) {
+                version.incrementAndGet();
+                fireUpsert(refreshed);
                 return false; // User already exists, just updated time
             }
-        }
 
-        // Ensure capacity before adding - O(1) amortized, O(n) when expanding
-        ensureCapacity();
+            ensureCapacity();
 
-        // Add new user - O(1)
-        AccessHistory newHistory = new AccessHistory(userId);
-        accessList[currentSize++] = newHistory;
-        sortAccessList(); // O(n^2) due to bubble sort
-        return true; // New user added
+            // Add new user in login order - O(log n)
+            AccessHistory history = new AccessHistory(userId);
+            accessIndex.insert(history);
+            version.incrementAndGet();
+            fireUpsert(history);
+            return true;
+        } finally {
+            unlockForWrite(lock);
+            addUserStats.record(start);
+        }
     }
 
     /**
      * Adds a user with full information to the access list
-     * Time Complexity: O(n) for search + O(n log n) for sort = O(n log n)
+     * Fails if the userId or the email is already registered
+     * Time Complexity: O(log n)
      */
     public boolean addUser(AccessHistory user) {
-        // Check if user already exists - O(n)
-        for (int i = 0; i < currentSize; i++) {
-            if (accessList[i].getUserId().equals(user.getUserId())) {
+        long start = System.nanoTime();
+        ReentrantLock lock = lockForWrite(user.getUserId());
+        try {
+            // Check if user already exists - O(1)
+            if (accessIndex.contains(user.getUserId())) {
                 return false; // User already exists
             }
+
+            ensureCapacity();
+
+            if (!accessIndex.insert(user)) {
+                return false; // Email belongs to another user
+            }
+            version.incrementAndGet();
+            fireUpsert(user);
+            return true;
+        } finally {
+            unlockForWrite(lock);
+            addUserStats.record(start);
         }
+    }
 
-        // Ensure capacity before adding - O(1) amortized, O(n) when expanding
-        ensureCapacity();
+    /**
+     * Adds a batch of users in one pass; users already present (or repeated within the
+     * batch) and users whose email is already registered are skipped
+     * Takes the writer gate exclusively once for the whole batch instead of a stripe per
+     * user, grows the capacity once and starts a single new epoch, so a bulk import costs
+     * one O(log n) index insertion per user and nothing else
+     * Returns the number of users added
+     * Time Complexity: O(k log n)
+     */
+    public int addUsers(DynamicArray<AccessHistory> users) {
+        snapshotLock.writeLock().lock();
+        try {
+            int added = 0;
+            for (int i = 0; i < users.size(); i++) {
+                if (accessIndex.insert(users.get(i))) {
+                    fireUpsert(users.get(i));
+                    added++;
+                }
+            }
+            if (added > 0) {
+                ensureCapacity(accessIndex.size());
+                version.incrementAndGet();
+            }
+            return added;
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
 
-        // Add new user - O(1)
-        accessList[currentSize++] = user;
-        sortAccessList(); // O(n^2) due to bubble sort
-        return true; // New user added
+    /**
+     * Refreshes the last login time of a batch of users, e.g. from ingested login events;
+     * users that are not registered (any more) are skipped rather than added
+     * Like addUsers, takes the writer gate exclusively once and starts a single new epoch
+     * Returns the number of users refreshed
+     * Time Complexity: O(k log n)
+     */
+    public int refreshLogins(java.util.Map<String, java.time.LocalDateTime> logins) {
+        snapshotLock.writeLock().lock();
+        try {
+            int refreshed = 0;
+            for (java.util.Map.Entry<String, java.time.LocalDateTime> login : logins.entrySet()) {
+                AccessHistory history = accessIndex.refresh(login.getKey(), login.getValue());
+                if (history != null) {
+                    fireUpsert(history);
+                    refreshed++;
+                }
+            }
+            if (refreshed > 0) {
+                version.incrementAndGet();
+            }
+            return refreshed;
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
     }
 
     /**
      * Removes an existing user from the access list
-     * Ensures the access list has no gaps by shifting elements
-     * Time Complexity: O(n) for search + O(n) for shift = O(n)
+     * Time Complexity: O(log n)
      */
     public boolean removeUser(String userId) {
-        for (int i = 0; i < currentSize; i++) {
-            if (accessList[i].getUserId().equals(userId)) {
-                // Shift elements to fill the gap - O(n)
-                for (int j = i; j < currentSize - 1; j++) {
-                    accessList[j] = accessList[j + 1];
+        ReentrantLock lock = lockForWrite(userId);
+        try {
+            if (accessIndex.remove(userId) == null) {
+                return false;
+            }
+            version.incrementAndGet();
+            fireRemove(userId);
+        } finally {
+            unlockForWrite(lock);
+        }
+        shrinkCapacity();
+        return true;
+    }
+
+    /**
+     * Evicts users from the oldest end of the recency order until at most maxEntries remain
+     * and nobody left last logged in before idleCutoff
+     * Either bound may be disabled: maxEntries <= 0, idleCutoff null
+     * Each eviction holds only that user's stripe, so writers are never blocked for the
+     * length of a sweep; a user who logs in meanwhile moves away from the oldest end and
+     * is not evicted
+     * Returns the number of users evicted
+     * Time Complexity: O(k log n) for k evictions
+     */
+    public int evictExpired(int maxEntries, java.time.LocalDateTime idleCutoff) {
+        int evicted = 0;
+        while (true) {
+            AccessHistory oldest = accessIndex.oldest();
+            if (oldest == null) {
+                break;
+            }
+            boolean overflow = maxEntries > 0 && accessIndex.size() > maxEntries;
+            boolean idle = idleCutoff != null && oldest.getLastLoginTime().isBefore(idleCutoff);
+            if (!overflow && !idle) {
+                break;
+            }
+
+            String userId = oldest.getUserId();
+            ReentrantLock lock = lockForWrite(userId);
+            try {
+                // Entries are replaced, never mutated: identity tells us it was not refreshed
+                if (accessIndex.get(userId) == oldest) {
+                    accessIndex.remove(userId);
+                    version.incrementAndGet();
+                    fireRemove(userId);
+                    evicted++;
                 }
-                accessList[--currentSize] = null; // Clear reference for GC
-                return true;
+            } finally {
+                unlockForWrite(lock);
             }
         }
-        return false; // User not found
+        if (evicted > 0) {
+            shrinkCapacity();
+        }
+        return evicted;
     }
 
     /**
      * Gets access history for a specific user
-     * Time Complexity: O(n)
+     * Lock-free read
+     * Time Complexity: O(1)
      */
     public AccessHistory getUserHistory(String userId) {
-        for (int i = 0; i < currentSize; i++) {
-            if (accessList[i].getUserId().equals(userId)) {
-                return accessList[i];
-            }
-        }
-        return null;
+        return accessIndex.get(userId);
     }
 
     /**
-     * Gets all access histories as a DynamicArray for compatibility
-     * Time Complexity: O(n)
+     * Gets the user registered with an email (case-insensitive)
+     * Lock-free read
+     * Time Complexity: O(1)
      */
-    public DynamicArray<AccessHistory> getAllAccessHistories() {
-        DynamicArray<AccessHistory> result = new DynamicArray<>();
-        for (int i = 0; i < currentSize; i++) {
-            result.add(accessList[i]);
-        }
-        return result;
+    public AccessHistory getUserByEmail(String email) {
+        return accessIndex.getByEmail(email);
     }
 
     /**
-     * Sorts the access list in ascending order based on last login time
-     * Uses bubble sort algorithm
-     * Time Complexity: O(n^2)
+     * Gets up to limit users of one department in ascending login order, with the same
+     * bounds and cursor as getAccessHistoriesBetween
+     * Time Complexity: O(log m + k) for m users in the department
      */
-    private void sortAccessList() {
-        // Simple bubble sort for the access list - O(n^2)
-        for (int i = 0; i < currentSize - 1; i++) {
-            for (int j = 0; j < currentSize - i - 1; j++) {
-                if (accessList[j].compareTo(accessList[j + 1]) > 0) {
-                    // Swap elements directly in array
-                    AccessHistory temp = accessList[j];
-                    accessList[j] = accessList[j + 1];
-                    accessList[j + 1] = temp;
+    public DynamicArray<AccessHistory> getDepartmentHistories(String department,
+                                                              java.time.LocalDateTime from, java.time.LocalDateTime to,
+                                                              java.time.LocalDateTime afterTime, String afterUserId,
+                                                              int limit) {
+        return accessIndex.departmentRange(department, from, to, afterTime, afterUserId, limit);
+    }
+
+    /**
+     * Number of users per department, ordered by department name
+     * Time Complexity: O(d log d) for d departments
+     */
+    public java.util.Map<String, Integer> getDepartmentCounts() {
+        return accessIndex.departmentCounts();
+    }
+
+    /**
+     * Current mutation epoch; changes whenever a user is added, refreshed or removed
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Gets an immutable view of all access histories in ascending order of last login time
+     * Returns the shared snapshot when nothing changed since it was taken; otherwise rebuilds
+     * it once for the current epoch, briefly holding writers off so the copy is consistent
+     * Time Complexity: O(1) when current, O(n) once per epoch otherwise
+     */
+    public AccessSnapshot snapshot() {
+        AccessSnapshot current = snapshot;
+        if (current.getVersion() == version.get()) {
+            return current;
+        }
+
+        long start = System.nanoTime();
+        snapshotLock.writeLock().lock();
+        try {
+            current = snapshot;
+            long epoch = version.get();
+            if (current.getVersion() != epoch) {
+                AccessHistory[] entries = new AccessHistory[accessIndex.size()];
+                int i = 0;
+                for (AccessHistory history : accessIndex) {
+                    entries[i++] = history;
                 }
+                current = new AccessSnapshot(epoch, entries);
+                snapshot = current;
+                snapshotStats.record(start);
             }
+            return current;
+        } finally {
+            snapshotLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Gets one page of access histories in ascending login order, starting strictly after
+     * the (loginTime, userId) cursor of the previous page; a null loginTime starts at the oldest
+     * Keyset pagination over the live index: lock-free and stable under concurrent writes
+     * Time Complexity: O(log n + k)
+     */
+    public DynamicArray<AccessHistory> getAccessHistoriesAfter(java.time.LocalDateTime loginTime, String userId, int limit) {
+        return accessIndex.after(loginTime, userId, limit);
+    }
+
+    /**
+     * Gets up to limit access histories with from <= last login time < to, in ascending
+     * login order, continuing strictly after the (afterTime, afterUserId) cursor if given
+     * Null bounds are open, e.g. to = now - 30 days finds users inactive for 30 days
+     * (the last login time is the registration/import time until the first login)
+     * Time Complexity: O(log n + k)
+     */
+    public DynamicArray<AccessHistory> getAccessHistoriesBetween(java.time.LocalDateTime from, java.time.LocalDateTime to,
+                                                                 java.time.LocalDateTime afterTime, String afterUserId,
+                                                                 int limit) {
+        return accessIndex.range(from, to, afterTime, afterUserId, limit);
+    }
+
+    /**
+     * Gets all access histories as a DynamicArray for compatibility
+     * Entries are returned in ascending order of last login time
+     * Prefer snapshot(), which does not copy
+     * Time Complexity: O(n)
+     */
+    public DynamicArray<AccessHistory> getAllAccessHistories() {
+        AccessSnapshot view = snapshot();
+        DynamicArray<AccessHistory> result = new DynamicArray<>(view.size());
+        for (AccessHistory history : view) {
+            result.add(history);
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Monitoring System: ").append(systemName).append("\n");
-        sb.append("Current Users: ").append(currentSize).append(" (Capacity: ").append(capacity).append(")\n");
+        sb.append("Current Users: ").append(accessIndex.size()).append(" (Capacity: ").append(capacity).append(")\n");
 
-        if (currentSize == 0) {
+        if (accessIndex.isEmpty()) {
             sb.append("No access history available.");
         } else {
-            sb.append("Access History:\n");
-            for (int i = 0; i < currentSize; i++) {
-                sb.append("  ").append(accessList[i].toString());
-                if (i < currentSize - 1) {
-                    sb.append("\n");
-                }
+            sb.append("Access History:");
+            for (AccessHistory history : accessIndex) {
+                sb.append("\n  ").append(history.toString());
             }
         }
 
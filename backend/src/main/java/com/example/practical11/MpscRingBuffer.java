@@ -0,0 +1,106 @@
+package com.example.practical11;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer
+ * Each slot carries a sequence number (Vyukov's bounded queue): a producer claims the next
+ * position with one CAS and publishes its element by advancing the slot's sequence, and
+ * the consumer takes elements in claim order without any CAS. offer() never blocks: it
+ * fails when the buffer is full, which callers turn into backpressure
+ *
+ * Capacity is rounded up to a power of two so a position maps to its slot with a mask
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    // sequence == position: free for the producer claiming position
+    // sequence == position + 1: holds the element published at position
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(); // Next position to claim
+
+    // Written by the consumer only; volatile so size() can be read from other threads
+    private volatile long head;
+
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be in 2..2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Appends an element; returns false if the buffer is full
+     * Safe to call from any number of threads
+     * Time Complexity: O(1) (lock-free)
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1); // Publishes the element
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false; // The consumer has not yet freed this slot from the previous lap
+            } else {
+                position = tail.get(); // Another producer claimed it first
+            }
+        }
+    }
+
+    /**
+     * Moves up to max published elements, oldest first, into out
+     * Consumer thread only; stops at the first claimed-but-unpublished slot so claim order is kept
+     * Returns the number of elements moved
+     * Time Complexity: O(k)
+     */
+    public int drainTo(List<? super E> out, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            out.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.set(index, head + mask + 1); // Free for the producer one lap ahead
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Whether the next element is not yet available; consumer thread only
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+
+    /**
+     * Approximate number of claimed elements not yet drained
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity(), tail.get() - head));
+    }
+}
@@ -0,0 +1,563 @@
+package com.example.practical11;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Off-heap alternative to keeping one AccessHistory object graph per user
+ * Users are fixed-size records in direct ByteBuffers; their strings live in an off-heap
+ * byte arena, departments are dictionary-encoded and login times are epoch millis (UTC)
+ * The hash index is a single int[] on the heap, so the collector sees a handful of large
+ * objects instead of ~6 small ones per user
+ *
+ * Reads return flyweight AccessHistory views that decode their fields on demand. A view
+ * is bound to its record: it fails with IllegalStateException once the user is removed
+ * Login times are kept to millisecond precision
+ *
+ * Thread-safe: readers share a read lock, mutations take the write lock
+ * Standalone: it has no recency order or secondary indexes, so MonitoringSystem does not
+ * use it; OffHeapAccessStoreBenchmark measures it against the on-heap index
+ */
+public class OffHeapAccessStore implements Iterable<AccessHistory> {
+
+    // Record layout, RECORD_BYTES per user
+    private static final int LOGIN_MILLIS = 0;   // long
+    private static final int STRINGS = 8;        // long arena offset of userId, name, email bytes
+    private static final int DEPARTMENT = 16;    // int dictionary code, -1 for null
+    private static final int HASH = 20;          // int userId.hashCode()
+    private static final int GENERATION = 24;    // int, bumped when the slot is freed
+    private static final int USER_ID_LENGTH = 28; // unsigned short
+    private static final int NAME_LENGTH = 30;   // unsigned short, NULL_LENGTH for null
+    private static final int EMAIL_LENGTH = 32;  // unsigned short, NULL_LENGTH for null
+    private static final int LIVE = 34;          // byte
+    private static final int RECORD_BYTES = 40;
+
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int MAX_STRING_BYTES = NULL_LENGTH - 1;
+
+    private static final int RECORD_CHUNK_SHIFT = 16; // 64K records per chunk
+    private static final int RECORD_CHUNK_MASK = (1 << RECORD_CHUNK_SHIFT) - 1;
+    private static final int ARENA_CHUNK_SHIFT = 22;  // 4 MiB of string bytes per chunk
+    private static final int ARENA_CHUNK_BYTES = 1 << ARENA_CHUNK_SHIFT;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final List<ByteBuffer> records = new ArrayList<>();
+    private final List<ByteBuffer> arena = new ArrayList<>();
+    private long arenaTop;
+    private long arenaGarbage;
+    private int slotCount;
+    private int[] freeSlots = new int[16]; // Stack of removed slots, reused before new ones
+    private int freeCount;
+    private final List<String> departments = new ArrayList<>();
+    private final Map<String, Integer> departmentCodes = new HashMap<>();
+    private int[] table = new int[16]; // Open addressing: slot + 1, 0 is empty
+    private int size;
+
+    /**
+     * Adds a user, or overwrites the stored fields of an existing one
+     * Returns true if the user was not present before
+     * Time Complexity: O(1) amortized
+     */
+    public boolean put(AccessHistory history) {
+        String userId = history.getUserId();
+        byte[] id = encode(userId);
+        byte[] name = encode(history.getName());
+        byte[] email = encode(history.getEmail());
+        if (id == null) {
+            throw new IllegalArgumentException("userId must not be null");
+        }
+
+        lock.writeLock().lock();
+        try {
+            int hash = userId.hashCode();
+            int bucket = find(id, hash);
+            boolean added = table[bucket] == 0;
+            int slot;
+            if (added) {
+                slot = allocateSlot();
+                table[bucket] = slot + 1;
+                size++;
+            } else {
+                slot = table[bucket] - 1;
+                arenaGarbage += stringBytes(slot);
+            }
+
+            ByteBuffer chunk = records.get(slot >>> RECORD_CHUNK_SHIFT);
+            int base = (slot & RECORD_CHUNK_MASK) * RECORD_BYTES;
+            chunk.putLong(base + LOGIN_MILLIS, toMillis(history.getLastLoginTime()));
+            chunk.putLong(base + STRINGS, writeStrings(id, name, email));
+            chunk.putInt(base + DEPARTMENT, departmentCode(history.getDepartment()));
+            chunk.putInt(base + HASH, hash);
+            chunk.putShort(base + USER_ID_LENGTH, (short) id.length);
+            chunk.putShort(base + NAME_LENGTH, (short) (name == null ? NULL_LENGTH : name.length));
+            chunk.putShort(base + EMAIL_LENGTH, (short) (email == null ? NULL_LENGTH : email.length));
+            chunk.put(base + LIVE, (byte) 1);
+
+            if (added && size * 2 > table.length) {
+                resize(table.length * 2);
+            }
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates a user's login time in place; no string bytes are rewritten
+     * Returns false if the user is not present
+     * Time Complexity: O(1)
+     */
+    public boolean touch(String userId, LocalDateTime loginTime) {
+        byte[] id = encode(userId);
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id, userId.hashCode());
+            if (table[bucket] == 0) {
+                return false;
+            }
+            int slot = table[bucket] - 1;
+            records.get(slot >>> RECORD_CHUNK_SHIFT)
+                .putLong((slot & RECORD_CHUNK_MASK) * RECORD_BYTES + LOGIN_MILLIS, toMillis(loginTime));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a flyweight view of the user's record, or null if not present
+     * Time Complexity: O(1)
+     */
+    public AccessHistory get(String userId) {
+        byte[] id = encode(userId);
+        lock.readLock().lock();
+        try {
+            int slot = table[find(id, userId.hashCode())] - 1;
+            return slot < 0 ? null : new View(this, slot, generation(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String userId) {
+        byte[] id = encode(userId);
+        lock.readLock().lock();
+        try {
+            return table[find(id, userId.hashCode())] != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a user; its slot is reused by later additions
+     * Returns false if the user is not present
+     * Time Complexity: O(1)
+     */
+    public boolean remove(String userId) {
+        byte[] id = encode(userId);
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id, userId.hashCode());
+            if (table[bucket] == 0) {
+                return false;
+            }
+            int slot = table[bucket] - 1;
+            deleteBucket(bucket);
+            size--;
+
+            ByteBuffer chunk = records.get(slot >>> RECORD_CHUNK_SHIFT);
+            int base = (slot & RECORD_CHUNK_MASK) * RECORD_BYTES;
+            arenaGarbage += stringBytes(slot);
+            chunk.put(base + LIVE, (byte) 0);
+            chunk.putInt(base + GENERATION, chunk.getInt(base + GENERATION) + 1); // Invalidates views
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes reserved off-heap for records and strings
+     */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) records.size() * (RECORD_BYTES << RECORD_CHUNK_SHIFT) + (long) arena.size() * ARENA_CHUNK_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * String bytes left behind by removed or overwritten users; the arena is append-only
+     */
+    public long getArenaGarbageBytes() {
+        lock.readLock().lock();
+        try {
+            return arenaGarbage;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Iterates views of all users in slot order (not login order)
+     * Weakly consistent: users added or removed during iteration may or may not be seen
+     */
+    @Override
+    public Iterator<AccessHistory> iterator() {
+        return new Iterator<AccessHistory>() {
+            private int nextSlot = advance(0);
+
+            private int advance(int from) {
+                lock.readLock().lock();
+                try {
+                    for (int slot = from; slot < slotCount; slot++) {
+                        if (isLive(slot)) {
+                            return slot;
+                        }
+                    }
+                    return -1;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextSlot >= 0;
+            }
+
+            @Override
+            public AccessHistory next() {
+                if (nextSlot < 0) {
+                    throw new NoSuchElementException();
+                }
+                AccessHistory view;
+                lock.readLock().lock();
+                try {
+                    view = new View(OffHeapAccessStore.this, nextSlot, generation(nextSlot));
+                } finally {
+                    lock.readLock().unlock();
+                }
+                nextSlot = advance(nextSlot + 1);
+                return view;
+            }
+        };
+    }
+
+    /**
+     * Flyweight over one record; every getter decodes from off-heap memory
+     */
+    private static final class View extends AccessHistory {
+        private final OffHeapAccessStore store;
+        private final int slot;
+        private final int generation;
+
+        View(OffHeapAccessStore store, int slot, int generation) {
+            this.store = store;
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        @Override
+        public String getUserId() {
+            return store.readString(slot, generation, 0);
+        }
+
+        @Override
+        public String getName() {
+            return store.readString(slot, generation, 1);
+        }
+
+        @Override
+        public String getEmail() {
+            return store.readString(slot, generation, 2);
+        }
+
+        @Override
+        public String getDepartment() {
+            return store.readDepartment(slot, generation);
+        }
+
+        @Override
+        public LocalDateTime getLastLoginTime() {
+            return store.readLoginTime(slot, generation);
+        }
+
+        @Override
+        public void setUserId(String userId) {
+            throw new UnsupportedOperationException("Off-heap views are read-only");
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Off-heap views are read-only");
+        }
+
+        @Override
+        public void setEmail(String email) {
+            throw new UnsupportedOperationException("Off-heap views are read-only");
+        }
+
+        @Override
+        public void setDepartment(String department) {
+            throw new UnsupportedOperationException("Off-heap views are read-only");
+        }
+
+        @Override
+        public void setLastLoginTime(LocalDateTime lastLoginTime) {
+            throw new UnsupportedOperationException("Off-heap views are read-only");
+        }
+    }
+
+    /**
+     * Decodes one of the record's strings: 0 = userId, 1 = name, 2 = email
+     */
+    private String readString(int slot, int generation, int field) {
+        lock.readLock().lock();
+        try {
+            ByteBuffer chunk = checkedChunk(slot, generation);
+            int base = (slot & RECORD_CHUNK_MASK) * RECORD_BYTES;
+            long offset = chunk.getLong(base + STRINGS);
+            int idLength = Short.toUnsignedInt(chunk.getShort(base + USER_ID_LENGTH));
+            int nameLength = Short.toUnsignedInt(chunk.getShort(base + NAME_LENGTH));
+            int emailLength = Short.toUnsignedInt(chunk.getShort(base + EMAIL_LENGTH));
+
+            int length = idLength;
+            if (field >= 1) {
+                offset += idLength;
+                length = nameLength;
+            }
+            if (field == 2) {
+                offset += nameLength == NULL_LENGTH ? 0 : nameLength;
+                length = emailLength;
+            }
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            arena.get((int) (offset >>> ARENA_CHUNK_SHIFT)).get((int) (offset & (ARENA_CHUNK_BYTES - 1)), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String readDepartment(int slot, int generation) {
+        lock.readLock().lock();
+        try {
+            int code = checkedChunk(slot, generation).getInt((slot & RECORD_CHUNK_MASK) * RECORD_BYTES + DEPARTMENT);
+            return code < 0 ? null : departments.get(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private LocalDateTime readLoginTime(int slot, int generation) {
+        lock.readLock().lock();
+        try {
+            long millis = checkedChunk(slot, generation).getLong((slot & RECORD_CHUNK_MASK) * RECORD_BYTES + LOGIN_MILLIS);
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds a lock
+    private ByteBuffer checkedChunk(int slot, int generation) {
+        if (generation(slot) != generation) {
+            throw new IllegalStateException("Access history view refers to a removed user");
+        }
+        return records.get(slot >>> RECORD_CHUNK_SHIFT);
+    }
+
+    private int generation(int slot) {
+        return records.get(slot >>> RECORD_CHUNK_SHIFT).getInt((slot & RECORD_CHUNK_MASK) * RECORD_BYTES + GENERATION);
+    }
+
+    private boolean isLive(int slot) {
+        return records.get(slot >>> RECORD_CHUNK_SHIFT).get((slot & RECORD_CHUNK_MASK) * RECORD_BYTES + LIVE) != 0;
+    }
+
+    /**
+     * Finds the bucket holding the userId, or the empty bucket where it belongs
+     * Linear probing; keys are compared on their stored UTF-8 bytes
+     */
+    private int find(byte[] id, int hash) {
+        int mask = table.length - 1;
+        int bucket = spread(hash) & mask;
+        while (true) {
+            int entry = table[bucket];
+            if (entry == 0 || matches(entry - 1, id, hash)) {
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    private boolean matches(int slot, byte[] id, int hash) {
+        ByteBuffer chunk = records.get(slot >>> RECORD_CHUNK_SHIFT);
+        int base = (slot & RECORD_CHUNK_MASK) * RECORD_BYTES;
+        if (chunk.getInt(base + HASH) != hash || Short.toUnsignedInt(chunk.getShort(base + USER_ID_LENGTH)) != id.length) {
+            return false;
+        }
+        long offset = chunk.getLong(base + STRINGS);
+        ByteBuffer strings = arena.get((int) (offset >>> ARENA_CHUNK_SHIFT));
+        int start = (int) (offset & (ARENA_CHUNK_BYTES - 1));
+        for (int i = 0; i < id.length; i++) {
+            if (strings.get(start + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Empties a bucket and shifts later entries of the probe run back, so lookups never
+     * stop early at the hole (no tombstones needed)
+     */
+    private void deleteBucket(int bucket) {
+        int mask = table.length - 1;
+        int hole = bucket;
+        int next = (hole + 1) & mask;
+        while (table[next] != 0) {
+            int home = spread(hashOf(table[next] - 1)) & mask;
+            // Move the entry into the hole if its home is not cyclically within (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    private void resize(int newLength) {
+        int[] old = table;
+        table = new int[newLength];
+        int mask = newLength - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int bucket = spread(hashOf(entry - 1)) & mask;
+                while (table[bucket] != 0) {
+                    bucket = (bucket + 1) & mask;
+                }
+                table[bucket] = entry;
+            }
+        }
+    }
+
+    private int hashOf(int slot) {
+        return records.get(slot >>> RECORD_CHUNK_SHIFT).getInt((slot & RECORD_CHUNK_MASK) * RECORD_BYTES + HASH);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        int slot = slotCount++;
+        if ((slot >>> RECORD_CHUNK_SHIFT) == records.size()) {
+            records.add(ByteBuffer.allocateDirect(RECORD_BYTES << RECORD_CHUNK_SHIFT));
+        }
+        return slot;
+    }
+
+    /**
+     * Appends userId, name and email bytes contiguously; returns their arena offset
+     */
+    private long writeStrings(byte[] id, byte[] name, byte[] email) {
+        int length = id.length + (name == null ? 0 : name.length) + (email == null ? 0 : email.length);
+        long within = arenaTop & (ARENA_CHUNK_BYTES - 1);
+        if (arena.isEmpty() || within + length > ARENA_CHUNK_BYTES) {
+            if (!arena.isEmpty()) {
+                arenaGarbage += ARENA_CHUNK_BYTES - within; // Tail of the full chunk stays unused
+            }
+            arena.add(ByteBuffer.allocateDirect(ARENA_CHUNK_BYTES));
+            arenaTop = (long) (arena.size() - 1) << ARENA_CHUNK_SHIFT;
+        }
+        long offset = arenaTop;
+        ByteBuffer chunk = arena.get(arena.size() - 1);
+        int position = (int) (offset & (ARENA_CHUNK_BYTES - 1));
+        chunk.put(position, id);
+        position += id.length;
+        if (name != null) {
+            chunk.put(position, name);
+            position += name.length;
+        }
+        if (email != null) {
+            chunk.put(position, email);
+        }
+        arenaTop += length;
+        return offset;
+    }
+
+    private long stringBytes(int slot) {
+        ByteBuffer chunk = records.get(slot >>> RECORD_CHUNK_SHIFT);
+        int base = (slot & RECORD_CHUNK_MASK) * RECORD_BYTES;
+        int nameLength = Short.toUnsignedInt(chunk.getShort(base + NAME_LENGTH));
+        int emailLength = Short.toUnsignedInt(chunk.getShort(base + EMAIL_LENGTH));
+        return Short.toUnsignedInt(chunk.getShort(base + USER_ID_LENGTH))
+            + (nameLength == NULL_LENGTH ? 0 : nameLength)
+            + (emailLength == NULL_LENGTH ? 0 : emailLength);
+    }
+
+    private int departmentCode(String department) {
+        if (department == null) {
+            return -1;
+        }
+        Integer code = departmentCodes.get(department);
+        if (code == null) {
+            code = departments.size();
+            departments.add(department);
+            departmentCodes.put(department, code);
+        }
+        return code;
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Field longer than " + MAX_STRING_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
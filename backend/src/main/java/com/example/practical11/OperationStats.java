@@ -0,0 +1,31 @@
+package com.example.practical11;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count and total latency of one operation, for exporting as a metrics timer
+ * Recording is two LongAdder increments: no allocation and no contention between threads,
+ * so it can sit on hot paths. Readers get a rate and a mean, not percentiles
+ */
+public final class OperationStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Records one call that started at startNanos (a System.nanoTime() value)
+     * Time Complexity: O(1)
+     */
+    public void record(long startNanos) {
+        totalNanos.add(System.nanoTime() - startNanos);
+        count.increment();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalNanos() {
+        return totalNanos.sum();
+    }
+}
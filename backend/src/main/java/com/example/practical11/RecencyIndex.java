@@ -0,0 +1,309 @@
+package com.example.practical11;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Storage engine behind MonitoringSystem
+ * Pairs a userId hash index with a recency-ordered skip list keyed on last login time,
+ * so lookups are O(1) and add/refresh/remove are O(log n) without any full resort
+ * Secondary indexes are maintained by the same operations: department -> its users in
+ * recency order, and email -> userId, which also enforces unique emails
+ * All structures are lock-free for readers; callers must serialize mutations per userId
+ * (MonitoringSystem does this with striped locks)
+ */
+public class RecencyIndex implements Iterable<AccessHistory> {
+
+    /**
+     * Ordering key for the recency structure: last login time, ties broken by userId
+     * The login time is captured when the entry is inserted so that later mutation of the
+     * AccessHistory object cannot silently corrupt the ordering
+     */
+    static final class RecencyKey implements Comparable<RecencyKey> {
+        final LocalDateTime loginTime;
+        final String userId;
+
+        RecencyKey(LocalDateTime loginTime, String userId) {
+            this.loginTime = loginTime;
+            this.userId = userId;
+        }
+
+        @Override
+        public int compareTo(RecencyKey other) {
+            int byTime = loginTime.compareTo(other.loginTime);
+            return byTime != 0 ? byTime : userId.compareTo(other.userId);
+        }
+    }
+
+    /**
+     * Hash index slot: the current ordering key together with the entry it points to,
+     * swapped as a unit so a lookup never observes a half-applied refresh
+     */
+    private static final class Slot {
+        final RecencyKey key;
+        final AccessHistory history;
+
+        Slot(RecencyKey key, AccessHistory history) {
+            this.key = key;
+            this.history = history;
+        }
+    }
+
+    /**
+     * Users of one department in recency order, with a count (skip list size() is O(n))
+     * Only mutated inside byDepartment.compute() for its key
+     */
+    private static final class Department {
+        final ConcurrentSkipListMap<RecencyKey, AccessHistory> entries = new ConcurrentSkipListMap<>();
+        volatile int count;
+    }
+
+    // The hash indexes are replaced by resize(); the skip lists release their nodes on removal
+    private volatile ConcurrentHashMap<String, Slot> byUserId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<RecencyKey, AccessHistory> byRecency = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Department> byDepartment = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<String, String> byEmail = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the entry for a user
+     * Time Complexity: O(1)
+     */
+    public AccessHistory get(String userId) {
+        Slot slot = byUserId.get(userId);
+        return slot == null ? null : slot.history;
+    }
+
+    public boolean contains(String userId) {
+        return byUserId.containsKey(userId);
+    }
+
+    /**
+     * Gets the entry registered with an email (case-insensitive)
+     * Time Complexity: O(1)
+     */
+    public AccessHistory getByEmail(String email) {
+        String userId = byEmail.get(emailKey(email));
+        return userId == null ? null : get(userId);
+    }
+
+    /**
+     * Inserts a new entry at its position in the recency order
+     * Returns false if the userId is already present or its email belongs to another user
+     * The email is claimed atomically, so concurrent inserts on different stripes cannot
+     * both register it
+     * Time Complexity: O(log n)
+     */
+    public boolean insert(AccessHistory history) {
+        String userId = history.getUserId();
+        if (byUserId.containsKey(userId)) {
+            return false;
+        }
+        if (history.getEmail() != null) {
+            String owner = byEmail.putIfAbsent(emailKey(history.getEmail()), userId);
+            if (owner != null && !owner.equals(userId)) {
+                return false;
+            }
+        }
+        RecencyKey key = new RecencyKey(history.getLastLoginTime(), userId);
+        byRecency.put(key, history);
+        addToDepartment(key, history);
+        byUserId.put(userId, new Slot(key, history));
+        return true;
+    }
+
+    /**
+     * Moves an existing entry to the position for a new login time
+     * Entries are treated as immutable once stored: the refreshed entry is a new object
+     * Returns the refreshed entry, or null if the user is not present
+     * Time Complexity: O(log n)
+     */
+    public AccessHistory refresh(String userId, LocalDateTime loginTime) {
+        Slot oldSlot = byUserId.get(userId);
+        if (oldSlot == null) {
+            return null;
+        }
+        // Replace rather than mutate, so snapshots holding the old entry stay unchanged
+        AccessHistory old = oldSlot.history;
+        AccessHistory history = new AccessHistory(old.getUserId(), old.getName(),
+            old.getEmail(), old.getDepartment(), loginTime);
+        RecencyKey newKey = new RecencyKey(loginTime, userId);
+        byRecency.remove(oldSlot.key);
+        byRecency.put(newKey, history);
+        removeFromDepartment(oldSlot.key, old);
+        addToDepartment(newKey, history);
+        byUserId.put(userId, new Slot(newKey, history));
+        return history;
+    }
+
+    /**
+     * Removes an entry from both the hash index and the recency order
+     * Returns the removed entry, or null if the user is not present
+     * Time Complexity: O(log n)
+     */
+    public AccessHistory remove(String userId) {
+        Slot slot = byUserId.remove(userId);
+        if (slot == null) {
+            return null;
+        }
+        byRecency.remove(slot.key);
+        removeFromDepartment(slot.key, slot.history);
+        if (slot.history.getEmail() != null) {
+            byEmail.remove(emailKey(slot.history.getEmail()), userId);
+        }
+        return slot.history;
+    }
+
+    /**
+     * Gets the entry with the oldest login time, or null if empty
+     * Time Complexity: O(1)
+     */
+    public AccessHistory oldest() {
+        Map.Entry<RecencyKey, AccessHistory> first = byRecency.firstEntry();
+        return first == null ? null : first.getValue();
+    }
+
+    private void addToDepartment(RecencyKey key, AccessHistory history) {
+        if (history.getDepartment() == null) {
+            return;
+        }
+        byDepartment.compute(history.getDepartment(), (name, department) -> {
+            Department updated = department == null ? new Department() : department;
+            if (updated.entries.put(key, history) == null) {
+                updated.count++;
+            }
+            return updated;
+        });
+    }
+
+    private void removeFromDepartment(RecencyKey key, AccessHistory history) {
+        if (history.getDepartment() == null) {
+            return;
+        }
+        byDepartment.computeIfPresent(history.getDepartment(), (name, department) -> {
+            if (department.entries.remove(key) != null) {
+                department.count--;
+            }
+            return department.count == 0 ? null : department; // Drop empty departments
+        });
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Number of users per department
+     * Time Complexity: O(d) for d departments
+     */
+    public Map<String, Integer> departmentCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        byDepartment.forEach((name, department) -> counts.put(name, department.count));
+        return counts;
+    }
+
+    public int size() {
+        return byUserId.size();
+    }
+
+    /**
+     * Rebuilds the userId and email hash indexes into tables sized for expectedUsers
+     * A ConcurrentHashMap never shrinks its table, so after mass removals this is what
+     * returns the memory. Lock-free readers keep using the old maps until the swap; both
+     * hold the same entries. Callers must exclude all mutations while it runs
+     * Time Complexity: O(n)
+     */
+    void resize(int expectedUsers) {
+        ConcurrentHashMap<String, Slot> users = new ConcurrentHashMap<>(Math.max(expectedUsers, byUserId.size()));
+        users.putAll(byUserId);
+        ConcurrentHashMap<String, String> emails = new ConcurrentHashMap<>(Math.max(expectedUsers, byEmail.size()));
+        emails.putAll(byEmail);
+        byUserId = users;
+        byEmail = emails;
+    }
+
+    public boolean isEmpty() {
+        return byUserId.isEmpty();
+    }
+
+    /**
+     * Collects up to limit entries strictly after the given (loginTime, userId) position
+     * in ascending recency order; a null loginTime starts from the oldest entry
+     * Time Complexity: O(log n + k)
+     */
+    public DynamicArray<AccessHistory> after(LocalDateTime loginTime, String userId, int limit) {
+        return range(null, null, loginTime, userId, limit);
+    }
+
+    /**
+     * Collects up to limit entries with from <= last login time < to, in ascending recency
+     * order, strictly after the (afterTime, afterUserId) cursor when one is given
+     * Null bounds are open; the range is a view of the skip list, so nothing outside it
+     * is visited
+     * Time Complexity: O(log n + k)
+     */
+    public DynamicArray<AccessHistory> range(LocalDateTime from, LocalDateTime to,
+                                             LocalDateTime afterTime, String afterUserId, int limit) {
+        return range(byRecency, from, to, afterTime, afterUserId, limit);
+    }
+
+    /**
+     * Same as range(), restricted to the users of one department
+     * Time Complexity: O(log m + k) for m users in the department
+     */
+    public DynamicArray<AccessHistory> departmentRange(String department, LocalDateTime from, LocalDateTime to,
+                                                       LocalDateTime afterTime, String afterUserId, int limit) {
+        Department members = byDepartment.get(department);
+        if (members == null) {
+            return new DynamicArray<>(0);
+        }
+        return range(members.entries, from, to, afterTime, afterUserId, limit);
+    }
+
+    private static DynamicArray<AccessHistory> range(ConcurrentNavigableMap<RecencyKey, AccessHistory> entries,
+                                                     LocalDateTime from, LocalDateTime to,
+                                                     LocalDateTime afterTime, String afterUserId, int limit) {
+        // "" sorts before every userId, so (t, "") is the first possible key at time t
+        RecencyKey lower = from == null ? null : new RecencyKey(from, "");
+        boolean lowerInclusive = true;
+        if (afterTime != null) {
+            RecencyKey cursor = new RecencyKey(afterTime, afterUserId);
+            if (lower == null || cursor.compareTo(lower) >= 0) {
+                lower = cursor;
+                lowerInclusive = false;
+            }
+        }
+
+        ConcurrentNavigableMap<RecencyKey, AccessHistory> view = entries;
+        if (lower != null) {
+            view = view.tailMap(lower, lowerInclusive);
+        }
+        if (to != null) {
+            view = view.headMap(new RecencyKey(to, ""), false);
+        }
+
+        DynamicArray<AccessHistory> page = new DynamicArray<>(Math.min(limit, 1024));
+        for (AccessHistory history : view.values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(history);
+        }
+        return page;
+    }
+
+    /**
+     * Iterates entries in ascending order of last login time
+     * The iterator is weakly consistent: it never blocks writers and never throws
+     * ConcurrentModificationException
+     */
+    @Override
+    public Iterator<AccessHistory> iterator() {
+        return byRecency.values().iterator();
+    }
+}
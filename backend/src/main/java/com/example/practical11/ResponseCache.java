@@ -0,0 +1,93 @@
+package com.example.practical11;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Serialized response bodies of read-heavy endpoints, one entry per endpoint
+ * Each entry is tagged with the ETag it was built for; ETags are derived from the data
+ * versions (MonitoringSystem.getVersion(), SessionStatistics.getVersion()), so a mutation
+ * invalidates an entry simply by changing the ETag its next request asks for
+ * The versions restart at 0 on every boot, so ETags also carry an id of this process;
+ * a tag cached from a previous run never matches again
+ */
+@Component
+public class ResponseCache {
+
+    /**
+     * Writes a response body
+     */
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final class Entry {
+        final String etag;
+        final byte[] body;
+
+        Entry(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    // Responses with more rows than this are streamed rather than held in memory
+    @Value("${dashboard.cache.max-rows:20000}")
+    private long maxRows;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Boot time plus a random suffix, captured once per process
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36)
+        + Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    /**
+     * Builds the ETag of a resource at the given data versions, scoped to this process
+     */
+    public String etag(String resource, long... versions) {
+        StringBuilder etag = new StringBuilder(resource).append('-').append(instanceId);
+        for (long version : versions) {
+            etag.append('-').append(version);
+        }
+        return etag.toString();
+    }
+
+    /**
+     * Whether a response of the given number of rows should be cached
+     */
+    public boolean isCacheable(long rows) {
+        return rows <= maxRows;
+    }
+
+    /**
+     * Gets the body cached for the endpoint under this ETag, building it if needed
+     * Concurrent requests for a stale endpoint wait for a single rebuild
+     * Time Complexity: O(1) on a hit
+     */
+    public byte[] get(String endpoint, String etag, BodyWriter writer) {
+        Entry entry = entries.get(endpoint);
+        if (entry != null && entry.etag.equals(etag)) {
+            return entry.body;
+        }
+        return entries.compute(endpoint, (key, current) -> {
+            if (current != null && current.etag.equals(etag)) {
+                return current;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            try {
+                writer.writeTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Entry(etag, out.toByteArray());
+        }).body;
+    }
+}
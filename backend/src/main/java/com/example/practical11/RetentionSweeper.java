@@ -0,0 +1,79 @@
+package com.example.practical11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background retention for the access list
+ * Periodically evicts users from the oldest end of MonitoringSystem's recency order when
+ * there are more than monitoring.retention.max-entries of them, or when they have not
+ * logged in for monitoring.retention.max-idle. Both limits are off by default
+ */
+@Component
+public class RetentionSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionSweeper.class);
+
+    @Value("${monitoring.retention.max-entries:0}")
+    private int maxEntries;
+
+    @Value("${monitoring.retention.max-idle:0s}")
+    private Duration maxIdle;
+
+    @Value("${monitoring.retention.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    @Autowired
+    private MonitoringSystem monitoringSystem;
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        if (maxEntries <= 0 && maxIdle.isZero()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "access-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.warn("Access list retention sweep failed", e);
+            }
+        }, 0, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the retention limits once; returns the number of users evicted
+     */
+    public int sweep() {
+        LocalDateTime idleCutoff = maxIdle.isZero() ? null : LocalDateTime.now().minus(maxIdle);
+        int evicted = monitoringSystem.evictExpired(maxEntries, idleCutoff);
+        if (evicted > 0) {
+            log.info("Evicted {} users from the access list ({} remain)", evicted, monitoringSystem.getCurrentSize());
+        }
+        return evicted;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
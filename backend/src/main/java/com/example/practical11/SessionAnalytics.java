@@ -0,0 +1,179 @@
+package com.example.practical11;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * In-memory session-duration analytics, updated as sessions complete
+ * Keeps duration histograms (in seconds) overall, per department and per user, and a
+ * ranking of users by total session time for top-K queries
+ * Rebuilt from the completed sessions in the database at startup
+ */
+@Component
+public class SessionAnalytics {
+
+    // ~3% relative error for the shared histograms, ~12% for the many small per-user ones
+    private static final int AGGREGATE_PRECISION_BITS = 5;
+    private static final int USER_PRECISION_BITS = 3;
+
+    private static final Comparator<UserRank> MOST_ACTIVE_FIRST = Comparator
+        .comparingLong((UserRank rank) -> rank.totalSeconds).reversed()
+        .thenComparing(Comparator.comparingLong((UserRank rank) -> rank.sessions).reversed())
+        .thenComparing(rank -> rank.userId);
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile DurationHistogram overall = new DurationHistogram(AGGREGATE_PRECISION_BITS);
+    private final ConcurrentHashMap<String, DurationHistogram> byDepartment = new ConcurrentHashMap<>();
+
+    // userId -> usage; a user's usage and rank are only replaced inside perUser.compute()
+    private final ConcurrentHashMap<String, UserUsage> perUser = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<UserRank> ranking = new ConcurrentSkipListSet<>(MOST_ACTIVE_FIRST);
+
+    /**
+     * Immutable ranking entry: a user's totals at the time of their last completed session
+     */
+    public static final class UserRank {
+        private final String userId;
+        private final long sessions;
+        private final long totalSeconds;
+
+        UserRank(String userId, long sessions, long totalSeconds) {
+            this.userId = userId;
+            this.sessions = sessions;
+            this.totalSeconds = totalSeconds;
+        }
+
+        public String getUserId() { return userId; }
+        public long getSessions() { return sessions; }
+        public long getTotalSeconds() { return totalSeconds; }
+    }
+
+    private static final class UserUsage {
+        final DurationHistogram histogram = new DurationHistogram(USER_PRECISION_BITS);
+        UserRank rank;
+    }
+
+    /**
+     * Rebuild everything from the completed sessions in the database
+     * Rows are read through a cursor and detached as they go, so memory does not grow
+     * with the table
+     */
+    @PostConstruct
+    public void rebuild() {
+        overall = new DurationHistogram(AGGREGATE_PRECISION_BITS);
+        byDepartment.clear();
+        perUser.clear();
+        ranking.clear();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<UserSessionEntity> sessions = sessionRepository.streamAllOrderByLoginTimeDesc()) {
+                sessions.forEach(session -> {
+                    if (session.getLogoutTime() != null) {
+                        sessionCompleted(session.getUserId(), session.getDepartment(),
+                            session.getLoginTime(), session.getLogoutTime());
+                    }
+                    entityManager.detach(session);
+                });
+            }
+        });
+    }
+
+    /**
+     * Record a completed session
+     * Time Complexity: O(log u) for u ranked users, for the ranking update
+     */
+    public void sessionCompleted(String userId, String department, LocalDateTime loginTime, LocalDateTime logoutTime) {
+        long seconds = Math.max(0, Duration.between(loginTime, logoutTime).getSeconds());
+        overall.record(seconds);
+        if (department != null) {
+            byDepartment.computeIfAbsent(department, name -> new DurationHistogram(AGGREGATE_PRECISION_BITS))
+                .record(seconds);
+        }
+        perUser.compute(userId, (id, usage) -> {
+            UserUsage updated = usage == null ? new UserUsage() : usage;
+            updated.histogram.record(seconds);
+            UserRank previous = updated.rank;
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            updated.rank = previous == null
+                ? new UserRank(userId, 1, seconds)
+                : new UserRank(userId, previous.sessions + 1, previous.totalSeconds + seconds);
+            ranking.add(updated.rank);
+            return updated;
+        });
+    }
+
+    /**
+     * All of a user's sessions were deleted; the overall and department histograms keep
+     * their history
+     */
+    public void userSessionsDeleted(String userId) {
+        perUser.computeIfPresent(userId, (id, usage) -> {
+            ranking.remove(usage.rank);
+            return null;
+        });
+    }
+
+    /**
+     * Time Complexity: O(1) in the number of sessions
+     */
+    public DurationHistogram.Summary overall() {
+        return overall.summary();
+    }
+
+    /**
+     * Returns null if no session of the department has completed
+     */
+    public DurationHistogram.Summary department(String department) {
+        DurationHistogram histogram = byDepartment.get(department);
+        return histogram == null ? null : histogram.summary();
+    }
+
+    /**
+     * Returns null if the user has no completed session
+     */
+    public DurationHistogram.Summary user(String userId) {
+        UserUsage usage = perUser.get(userId);
+        return usage == null ? null : usage.histogram.summary();
+    }
+
+    /**
+     * The k users with the most total session time, most active first
+     * Time Complexity: O(k)
+     */
+    public List<UserRank> topUsers(int k) {
+        List<UserRank> top = new ArrayList<>(Math.min(k, 100));
+        for (UserRank rank : ranking) {
+            if (top.size() >= k) {
+                break;
+            }
+            top.add(rank);
+        }
+        return top;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.practical11;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of acknowledged session events that are not yet in the database
+ * Records are framed as int length + int crc32 + payload, like AccessJournal's, so a torn
+ * or garbage tail is detected rather than decoded. The log is split into numbered segments:
+ * the write-behind flusher rotates to a new segment when it drains its queue and deletes
+ * the older segments once that batch has committed
+ *
+ * append() only writes; sync() makes everything appended so far durable. Appends, rotate
+ * and close are serialized by SessionWriteBehind's state lock, while sync() is called
+ * outside it, so one fsync covers every event appended while the previous one ran
+ * (group commit)
+ */
+class SessionEventLog implements Closeable {
+    static final byte LOGIN = 'L';
+    static final byte LOGOUT = 'O';
+
+    private static final String PREFIX = "session-events-";
+    private static final String SUFFIX = ".log";
+
+    private static final int HEADER_BYTES = 8; // int length + int crc32
+    private static final int MAX_RECORD_BYTES = 1 << 18; // Type byte + three writeUTF strings
+
+    /**
+     * One logged event; department is null for logouts
+     */
+    static final class Record {
+        final byte type;
+        final String userId;
+        final String department;
+        final LocalDateTime time;
+
+        Record(byte type, String userId, String department, LocalDateTime time) {
+            this.type = type;
+            this.userId = userId;
+            this.department = department;
+            this.time = time;
+        }
+    }
+
+    private final Path directory;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+    private final CRC32 crc = new CRC32();
+    private volatile FileChannel channel;
+    private long segment;
+
+    // Sequence numbers of appended records; forced is guarded by forceLock
+    private volatile long appended;
+    private long forced;
+    private final ReentrantLock forceLock = new ReentrantLock();
+
+    SessionEventLog(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Existing segments in write order (left behind by a previous run)
+     */
+    List<Path> existingSegments() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                ids.add(segmentId(file));
+            }
+        }
+        Collections.sort(ids);
+        List<Path> segments = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            segments.add(segmentPath(id));
+        }
+        return segments;
+    }
+
+    /**
+     * Opens a new segment after any existing ones
+     */
+    void open() throws IOException {
+        List<Path> existing = existingSegments();
+        segment = existing.isEmpty() ? 0 : segmentId(existing.get(existing.size() - 1)) + 1;
+        channel = openSegment(segment);
+    }
+
+    /**
+     * Writes one record without forcing it; returns its sequence number for sync()
+     */
+    long append(byte type, String userId, String department, LocalDateTime time) throws IOException {
+        buffer.reset();
+        buffer.write(new byte[HEADER_BYTES]);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(type);
+        out.writeUTF(userId);
+        out.writeUTF(department == null ? "" : department);
+        out.writeUTF(time.toString());
+        out.flush();
+
+        byte[] record = buffer.toByteArray();
+        int length = record.length - HEADER_BYTES;
+        crc.reset();
+        crc.update(record, HEADER_BYTES, length);
+        ByteBuffer bytes = ByteBuffer.wrap(record);
+        bytes.putInt(0, length);
+        bytes.putInt(4, (int) crc.getValue());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        return ++appended;
+    }
+
+    /**
+     * Returns once the record with the given sequence number is on disk
+     * The first waiter forces everything appended so far; waiters queued behind it find
+     * their record already covered and return without another fsync
+     */
+    void sync(long sequence) throws IOException {
+        forceLock.lock();
+        try {
+            if (forced >= sequence) {
+                return;
+            }
+            long target = appended; // rotate() needs forceLock, so these are in the current segment
+            channel.force(false);
+            forced = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts the next one
+     * Returns the id of the closed segment
+     */
+    long rotate() throws IOException {
+        forceLock.lock();
+        try {
+            long closed = segment;
+            channel.force(false); // Records still waiting for sync() are in this segment
+            forced = appended;
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            return closed;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes all segments up to and including the given id
+     */
+    void deleteUpTo(long lastSegment) throws IOException {
+        for (Path file : existingSegments()) {
+            if (segmentId(file) <= lastSegment) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Passes the records of a segment to the consumer up to the first bad one: a torn or
+     * zero-filled tail, a checksum mismatch, an undecodable payload, or a record the consumer
+     * rejects by returning false. The segment is truncated there, so a later run does not
+     * trip over the same tail
+     * Returns the number of records accepted
+     */
+    static long read(Path file, Predicate<Record> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            long position = 0;
+            long accepted = 0;
+            while (true) {
+                header.clear();
+                if (readFully(channel, header, position) < HEADER_BYTES) {
+                    break;
+                }
+                int length = header.getInt(0);
+                int checksum = header.getInt(4);
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                if (readFully(channel, payload, position + HEADER_BYTES) < length) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload.array());
+                Record record = crc.getValue() == (checksum & 0xFFFFFFFFL) ? decode(payload.array()) : null;
+                if (record == null || !consumer.test(record)) {
+                    break;
+                }
+                position += HEADER_BYTES + length;
+                accepted++;
+            }
+            if (position < channel.size()) {
+                channel.truncate(position);
+                channel.force(true);
+            }
+            return accepted;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        forceLock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Decodes a checksummed payload; null if it is not a well-formed record
+     */
+    private static Record decode(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte type = in.readByte();
+            String userId = in.readUTF();
+            String department = in.readUTF();
+            LocalDateTime time = LocalDateTime.parse(in.readUTF());
+            return new Record(type, userId, department.isEmpty() ? null : department, time);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        int total = 0;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(segmentPath(id),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(PREFIX + id + SUFFIX);
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.practical11;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filter and keyset cursor for a page of sessions, newest first
+ * Unset (null) filters are not applied; the cursor is the (loginTime, id) of the last row
+ * of the previous page
+ */
+public class SessionQuery {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private String userId;
+    private String department;
+    private UserSessionEntity.SessionStatus status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private LocalDateTime afterLoginTime;
+    private Long afterId;
+    private int limit = DEFAULT_LIMIT;
+
+    public String getUserId() { return userId; }
+    public SessionQuery userId(String userId) { this.userId = userId; return this; }
+
+    public String getDepartment() { return department; }
+    public SessionQuery department(String department) { this.department = department; return this; }
+
+    public UserSessionEntity.SessionStatus getStatus() { return status; }
+    public SessionQuery status(UserSessionEntity.SessionStatus status) { this.status = status; return this; }
+
+    /** Inclusive lower bound on login time */
+    public LocalDateTime getFrom() { return from; }
+    public SessionQuery from(LocalDateTime from) { this.from = from; return this; }
+
+    /** Exclusive upper bound on login time */
+    public LocalDateTime getTo() { return to; }
+    public SessionQuery to(LocalDateTime to) { this.to = to; return this; }
+
+    public LocalDateTime getAfterLoginTime() { return afterLoginTime; }
+    public Long getAfterId() { return afterId; }
+    public SessionQuery after(LocalDateTime loginTime, Long id) {
+        this.afterLoginTime = loginTime;
+        this.afterId = id;
+        return this;
+    }
+
+    public int getLimit() { return limit; }
+
+    /**
+     * Sets the page size, clamped to 1..MAX_LIMIT
+     */
+    public SessionQuery limit(int limit) {
+        this.limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return this;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.practical11;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory session statistics maintained incrementally by UserSessionService
+ * Reconciled with the database once at startup; afterwards every read is O(1)
+ * Distinct users are counted exactly from the per-user counters, not from hash codes
+ * getVersion() changes with every recorded session change, for cache validation
+ */
+@Component
+public class SessionStatistics {
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    private final AtomicLong totalSessions = new AtomicLong();
+    private final AtomicLong activeSessions = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+
+    // userId -> {total sessions, active sessions}; only mutated inside compute() for that key
+    private final ConcurrentHashMap<String, long[]> perUser = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuild all counters from the database
+     */
+    @PostConstruct
+    public void reconcile() {
+        List<Object[]> rows = sessionRepository.countSessionsPerUser(UserSessionEntity.SessionStatus.ACTIVE);
+        perUser.clear();
+        long total = 0;
+        long active = 0;
+        for (Object[] row : rows) {
+            long userTotal = ((Number) row[1]).longValue();
+            long userActive = ((Number) row[2]).longValue();
+            perUser.put((String) row[0], new long[] { userTotal, userActive });
+            total += userTotal;
+            active += userActive;
+        }
+        totalSessions.set(total);
+        activeSessions.set(active);
+        version.incrementAndGet();
+    }
+
+    public void sessionStarted(String userId) {
+        perUser.compute(userId, (id, counts) -> {
+            long[] updated = counts == null ? new long[2] : counts;
+            updated[0]++;
+            updated[1]++;
+            return updated;
+        });
+        totalSessions.incrementAndGet();
+        activeSessions.incrementAndGet();
+        version.incrementAndGet();
+    }
+
+    public void sessionEnded(String userId) {
+        perUser.computeIfPresent(userId, (id, counts) -> {
+            if (counts[1] > 0) {
+                counts[1]--;
+                activeSessions.decrementAndGet();
+            }
+            return counts;
+        });
+        version.incrementAndGet();
+    }
+
+    /**
+     * All of a user's sessions were deleted
+     */
+    public void userSessionsDeleted(String userId) {
+        long[] counts = perUser.remove(userId);
+        if (counts != null) {
+            totalSessions.addAndGet(-counts[0]);
+            activeSessions.addAndGet(-counts[1]);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Every active session was closed (application shutdown)
+     */
+    public void allSessionsEnded() {
+        perUser.replaceAll((id, counts) -> {
+            counts[1] = 0;
+            return counts;
+        });
+        activeSessions.set(0);
+        version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getTotalSessions() {
+        return totalSessions.get();
+    }
+
+    public long getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    public long getUniqueUsers() {
+        return perUser.size();
+    }
+}
@@ -0,0 +1,495 @@
+package com.example.practical11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind pipeline for login/logout events
+ * Events are acknowledged from memory, coalesced (a login followed by its logout becomes a
+ * single completed row) and flushed with JDBC batch inserts/updates when the queue reaches
+ * the batch size or the flush interval elapses, whichever comes first
+ * With durability FSYNC every event is appended to a local fsynced log before it is
+ * acknowledged and replayed on startup, so an acknowledged event survives a crash. The
+ * fsync is done after the state lock is released and shared by all events appended in the
+ * meantime (group commit), so concurrent logins do not queue behind one fsync each
+ *
+ * Enabled with sessions.write-behind.enabled=true; otherwise UserSessionService writes through
+ */
+@Component
+public class SessionWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionWriteBehind.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO user_sessions (id, user_id, department, login_time, logout_time, session_status) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String NEXT_ID_BLOCK_SQL =
+        "SELECT NEXT VALUE FOR " + UserSessionEntity.ID_SEQUENCE;
+    private static final String LOGOUT_SQL =
+        "UPDATE user_sessions SET logout_time = ?, session_status = 'COMPLETED' WHERE id = ? AND session_status = 'ACTIVE'";
+
+    public enum Durability {
+        /** Acknowledge from memory; events queued at a crash are lost */
+        NONE,
+        /** Append to an fsynced local log before acknowledging */
+        FSYNC
+    }
+
+    @Value("${sessions.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sessions.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sessions.write-behind.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${sessions.write-behind.durability:NONE}")
+    private Durability durability;
+
+    @Value("${sessions.write-behind.log-dir:./data/session-events}")
+    private String logDir;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    @Autowired
+    private SessionStatistics sessionStatistics;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private SessionAnalytics sessionAnalytics;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    /**
+     * A session created through the write-behind path
+     * All mutable fields are guarded by stateLock
+     */
+    private static final class PendingSession {
+        final String userId;
+        final String department;
+        final LocalDateTime loginTime;
+        LocalDateTime logoutTime;
+        LocalDateTime flushedLogoutTime; // logoutTime as written by the in-flight insert
+        Long id;
+
+        PendingSession(String userId, String department, LocalDateTime loginTime) {
+            this.userId = userId;
+            this.department = department;
+            this.loginTime = loginTime;
+        }
+
+        UserSessionEntity toEntity() {
+            UserSessionEntity entity = new UserSessionEntity(userId, department, loginTime);
+            entity.setId(id);
+            if (logoutTime != null) {
+                entity.setLogoutTime(logoutTime);
+            }
+            return entity;
+        }
+    }
+
+    // stateLock guards the in-memory queues and orders every write-behind update of
+    // the active-session index against them. A ReentrantLock rather than a monitor, so
+    // virtual threads waiting for it do not pin their carrier
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Ids reserved from the session sequence, guarded by flushLock: nextId until idBlockEnd (exclusive)
+    private long nextId;
+    private long idBlockEnd;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final OperationStats flushStats = new OperationStats();
+
+    // Guarded by stateLock
+    private final ArrayDeque<PendingSession> queuedInserts = new ArrayDeque<>();
+    private final Map<Long, LocalDateTime> queuedLogouts = new LinkedHashMap<>();
+    private final Map<String, PendingSession> unpersistedActive = new HashMap<>();
+    private SessionEventLog eventLog;
+
+    private TransactionTemplate flushTransaction;
+    private ScheduledExecutorService flusher;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Database round trips of non-empty flushes (batch insert plus logout update)
+     */
+    public OperationStats getFlushStats() {
+        return flushStats;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // A flush commits on its own, even when a reader triggers it inside its transaction
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        boolean replayed = false;
+        if (durability == Durability.FSYNC) {
+            eventLog = new SessionEventLog(Paths.get(logDir));
+            replay(eventLog.existingSegments());
+            replayed = !queuedInserts.isEmpty() || !queuedLogouts.isEmpty();
+            if (!replayed) {
+                eventLog.deleteUpTo(Long.MAX_VALUE); // Everything logged was already flushed
+            }
+            eventLog.open();
+        }
+        flush();
+        if (replayed) {
+            sessionStatistics.reconcile(); // Count the replayed sessions too
+            sessionAnalytics.rebuild();
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+        stateLock.lock();
+        try {
+            if (eventLog != null) {
+                eventLog.close();
+            }
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Start a session unless the user already has an active one
+     * The returned entity has no id until its batch is flushed
+     */
+    public UserSessionEntity login(String userId, String department) {
+        UserSessionEntity session;
+        long logged;
+        stateLock.lock();
+        try {
+            PendingSession pending = unpersistedActive.get(userId);
+            if (pending != null) {
+                return pending.toEntity();
+            }
+            ActiveSessionIndex.ActiveSession active = activeSessionIndex.get(userId);
+            if (active != null) {
+                return active.toEntity();
+            }
+
+            pending = new PendingSession(userId, department, LocalDateTime.now());
+            logged = appendToLog(SessionEventLog.LOGIN, userId, department, pending.loginTime);
+            queuedInserts.add(pending);
+            unpersistedActive.put(userId, pending);
+            activeSessionIndex.put(new ActiveSessionIndex.ActiveSession(null, userId, department, pending.loginTime));
+            sessionStatistics.sessionStarted(userId);
+            changeEventBus.sessionStarted(null, userId, department, pending.loginTime);
+            requestFlushIfFull();
+            session = pending.toEntity();
+        } finally {
+            stateLock.unlock();
+        }
+        syncLog(logged, userId);
+        return session;
+    }
+
+    /**
+     * End the user's active session
+     * Returns false if the user has no active session
+     */
+    public boolean logout(String userId) {
+        long logged;
+        stateLock.lock();
+        try {
+            ActiveSessionIndex.ActiveSession active = activeSessionIndex.remove(userId);
+            if (active == null) {
+                return false;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            logged = appendToLog(SessionEventLog.LOGOUT, userId, null, now);
+            PendingSession pending = unpersistedActive.remove(userId);
+            if (pending != null) {
+                pending.logoutTime = now; // Coalesced into the insert, or applied after it
+            } else {
+                queuedLogouts.put(active.getId(), now);
+            }
+            sessionStatistics.sessionEnded(userId);
+            sessionAnalytics.sessionCompleted(userId, active.getDepartment(), active.getLoginTime(), now);
+            changeEventBus.sessionEnded(active.getId(), userId, active.getDepartment(), active.getLoginTime(), now);
+            requestFlushIfFull();
+        } finally {
+            stateLock.unlock();
+        }
+        syncLog(logged, userId);
+        return true;
+    }
+
+    /**
+     * Write all queued events to the database
+     * Called by the flusher, and by readers that need to see their own writes
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<PendingSession> inserts;
+            Map<Long, LocalDateTime> logouts;
+            long closedSegment = -1;
+            stateLock.lock();
+            try {
+                if (queuedInserts.isEmpty() && queuedLogouts.isEmpty()) {
+                    return;
+                }
+                if (eventLog != null) {
+                    closedSegment = eventLog.rotate(); // Later events go to the next segment
+                }
+                inserts = new ArrayList<>(queuedInserts);
+                queuedInserts.clear();
+                logouts = new LinkedHashMap<>(queuedLogouts);
+                queuedLogouts.clear();
+                for (PendingSession pending : inserts) {
+                    pending.flushedLogoutTime = pending.logoutTime;
+                }
+            } finally {
+                stateLock.unlock();
+            }
+
+            long start = System.nanoTime();
+            try {
+                flushTransaction.executeWithoutResult(status -> {
+                    insertBatch(inserts);
+                    logoutBatch(logouts);
+                });
+                flushStats.record(start);
+            } catch (RuntimeException e) {
+                stateLock.lock();
+                try {
+                    for (int i = inserts.size() - 1; i >= 0; i--) {
+                        PendingSession pending = inserts.get(i);
+                        pending.id = null;
+                        queuedInserts.addFirst(pending);
+                    }
+                    for (Map.Entry<Long, LocalDateTime> logout : logouts.entrySet()) {
+                        queuedLogouts.putIfAbsent(logout.getKey(), logout.getValue());
+                    }
+                } finally {
+                    stateLock.unlock();
+                }
+                log.warn("Session write-behind flush failed, will retry", e);
+                return;
+            }
+
+            stateLock.lock();
+            try {
+                for (PendingSession pending : inserts) {
+                    if (pending.logoutTime == null) {
+                        // Now visible in the database as an active session
+                        unpersistedActive.remove(pending.userId, pending);
+                        ActiveSessionIndex.ActiveSession indexed = activeSessionIndex.get(pending.userId);
+                        if (indexed != null && indexed.getId() == null
+                                && indexed.getLoginTime().equals(pending.loginTime)) {
+                            activeSessionIndex.replace(indexed, new ActiveSessionIndex.ActiveSession(
+                                pending.id, pending.userId, pending.department, pending.loginTime));
+                        }
+                    } else if (pending.flushedLogoutTime == null) {
+                        // Logged out while its insert was in flight
+                        queuedLogouts.put(pending.id, pending.logoutTime);
+                    }
+                }
+                if (closedSegment >= 0) {
+                    eventLog.deleteUpTo(closedSegment);
+                }
+            } finally {
+                stateLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Session write-behind flush failed", e);
+        }
+    }
+
+    private void requestFlushIfFull() {
+        if (queuedInserts.size() + queuedLogouts.size() >= batchSize
+                && flusher != null && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void insertBatch(List<PendingSession> inserts) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (PendingSession pending : inserts) {
+                    LocalDateTime logoutTime = pending.flushedLogoutTime;
+                    pending.id = nextId();
+                    statement.setLong(1, pending.id);
+                    statement.setString(2, pending.userId);
+                    statement.setString(3, pending.department);
+                    statement.setTimestamp(4, Timestamp.valueOf(pending.loginTime));
+                    statement.setTimestamp(5, logoutTime == null ? null : Timestamp.valueOf(logoutTime));
+                    statement.setString(6, (logoutTime == null
+                        ? UserSessionEntity.SessionStatus.ACTIVE : UserSessionEntity.SessionStatus.COMPLETED).name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Next session id, reserving a new block from the sequence when the current one is used up
+     * Blocks are disjoint from Hibernate's (same sequence, same pooled-lo interpretation)
+     * Time Complexity: O(1), one sequence round trip per ID_ALLOCATION_SIZE ids
+     */
+    private long nextId() {
+        if (nextId == idBlockEnd) {
+            nextId = jdbcTemplate.queryForObject(NEXT_ID_BLOCK_SQL, Long.class);
+            idBlockEnd = nextId + UserSessionEntity.ID_ALLOCATION_SIZE;
+        }
+        return nextId++;
+    }
+
+    private void logoutBatch(Map<Long, LocalDateTime> logouts) {
+        if (logouts.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(logouts.size());
+        for (Map.Entry<Long, LocalDateTime> logout : logouts.entrySet()) {
+            rows.add(new Object[] { Timestamp.valueOf(logout.getValue()), logout.getKey() });
+        }
+        jdbcTemplate.batchUpdate(LOGOUT_SQL, rows);
+    }
+
+    /**
+     * Writes an event to the log under stateLock; returns its sequence number, or 0 without a log
+     */
+    private long appendToLog(byte type, String userId, String department, LocalDateTime time) {
+        if (eventLog == null) {
+            return 0;
+        }
+        try {
+            return eventLog.append(type, userId, department, time);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to log session event for " + userId, e);
+        }
+    }
+
+    /**
+     * Waits, outside stateLock, until a logged event is on disk
+     */
+    private void syncLog(long sequence, String userId) {
+        if (sequence == 0) {
+            return;
+        }
+        try {
+            eventLog.sync(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync session event for " + userId, e);
+        }
+    }
+
+    /**
+     * Re-queues events acknowledged by a previous run but not confirmed flushed
+     * Replay is idempotent: logins already in the database and logouts without an active
+     * session are skipped. A record of unknown type is corruption and ends its segment
+     */
+    private void replay(List<Path> segments) throws IOException {
+        for (Path segment : segments) {
+            SessionEventLog.read(segment, record -> {
+                if (record.type == SessionEventLog.LOGIN) {
+                    if (!unpersistedActive.containsKey(record.userId)
+                            && !sessionRepository.existsByUserIdAndLoginTime(record.userId, record.time)) {
+                        PendingSession pending = new PendingSession(record.userId, record.department, record.time);
+                        queuedInserts.add(pending);
+                        unpersistedActive.put(record.userId, pending);
+                        activeSessionIndex.put(new ActiveSessionIndex.ActiveSession(
+                            null, record.userId, record.department, record.time));
+                    }
+                } else if (record.type == SessionEventLog.LOGOUT) {
+                    PendingSession pending = unpersistedActive.remove(record.userId);
+                    ActiveSessionIndex.ActiveSession active = activeSessionIndex.remove(record.userId);
+                    if (pending != null) {
+                        pending.logoutTime = record.time;
+                    } else if (active != null) {
+                        queuedLogouts.putIfAbsent(active.getId(), record.time);
+                    }
+                } else {
+                    log.warn("Session event log {} has a record of unknown type {}, ignoring the rest of it",
+                        segment.getFileName(), record.type);
+                    return false;
+                }
+                return true;
+            });
+        }
+        if (!segments.isEmpty()) {
+            log.info("Replayed {} session event log segment(s)", segments.size());
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.example.practical11;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * MonitoringSystem partitioned by userId hash into independent MonitoringSystem shards
+ * Each shard has its own index, writer gate, epoch and snapshot, so writers on different
+ * shards share no lock or counter and throughput grows with the number of cores
+ *
+ * Per-user operations go straight to the user's shard. Whole-dataset operations (range
+ * queries, department statistics, eviction, bulk import) run on all shards in parallel on
+ * a ForkJoinPool; ordered results are combined with a k-way merge by (last login time,
+ * userId), the same order a single MonitoringSystem uses, so cursors work unchanged
+ *
+ * A drop-in replacement: the inherited index stays empty and every public operation is
+ * overridden. Emails stay unique across shards: adds are serialized per email through
+ * striped locks while every shard is checked for the email
+ */
+public class ShardedMonitoringSystem extends MonitoringSystem {
+    private static final int EMAIL_LOCK_STRIPES = 64; // Power of two so the stripe is a mask
+
+    private static final Comparator<AccessHistory> LOGIN_ORDER = Comparator
+        .comparing(AccessHistory::getLastLoginTime)
+        .thenComparing(AccessHistory::getUserId);
+
+    private final MonitoringSystem[] shards;
+    private final ReentrantLock[] emailStripes;
+    private final ForkJoinPool pool;
+
+    private final OperationStats addUserStats = new OperationStats();
+    private final OperationStats snapshotStats = new OperationStats();
+    private volatile AccessSnapshot merged = AccessSnapshot.EMPTY;
+
+    public ShardedMonitoringSystem(String systemName, int shardCount) {
+        this(systemName, shardCount, ForkJoinPool.commonPool());
+    }
+
+    public ShardedMonitoringSystem(String systemName, int shardCount, ForkJoinPool pool) {
+        super(systemName);
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.shards = new MonitoringSystem[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new MonitoringSystem(systemName + "#" + i);
+        }
+        this.emailStripes = new ReentrantLock[EMAIL_LOCK_STRIPES];
+        for (int i = 0; i < EMAIL_LOCK_STRIPES; i++) {
+            emailStripes[i] = new ReentrantLock();
+        }
+        this.pool = pool;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private MonitoringSystem shardFor(String userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16); // Spread high bits, as HashMap does
+        return shards[Math.floorMod(h, shards.length)];
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private ReentrantLock emailStripeFor(String normalizedEmail) {
+        int h = normalizedEmail.hashCode();
+        h ^= (h >>> 16);
+        return emailStripes[h & (EMAIL_LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Runs task on every shard in parallel and returns the results in shard order
+     */
+    private <R> List<R> onAllShards(Function<MonitoringSystem, R> task) {
+        List<ForkJoinTask<R>> forked = new ArrayList<>(shards.length);
+        for (MonitoringSystem shard : shards) {
+            forked.add(pool.submit(() -> task.apply(shard)));
+        }
+        List<R> results = new ArrayList<>(shards.length);
+        for (ForkJoinTask<R> result : forked) {
+            results.add(result.join());
+        }
+        return results;
+    }
+
+    /**
+     * k-way merge of runs that are each in login order, keeping the first limit entries
+     * Time Complexity: O(m log k) for m entries returned from k runs
+     */
+    private static AccessHistory[] merge(List<IntFunction<AccessHistory>> runs, int[] sizes, int limit) {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        AccessHistory[] out = new AccessHistory[Math.min(total, limit)];
+        // Heap of {run, position}, ordered by the entry at that position
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, runs.size()),
+            (a, b) -> LOGIN_ORDER.compare(runs.get(a[0]).apply(a[1]), runs.get(b[0]).apply(b[1])));
+        for (int run = 0; run < runs.size(); run++) {
+            if (sizes[run] > 0) {
+                heap.add(new int[] {run, 0});
+            }
+        }
+        int n = 0;
+        while (n < out.length) {
+            int[] head = heap.poll();
+            out[n++] = runs.get(head[0]).apply(head[1]);
+            if (++head[1] < sizes[head[0]]) {
+                heap.add(head);
+            }
+        }
+        return out;
+    }
+
+    private static DynamicArray<AccessHistory> mergePages(List<DynamicArray<AccessHistory>> pages, int limit) {
+        List<IntFunction<AccessHistory>> runs = new ArrayList<>(pages.size());
+        int[] sizes = new int[pages.size()];
+        for (int i = 0; i < pages.size(); i++) {
+            runs.add(pages.get(i)::get);
+            sizes[i] = pages.get(i).size();
+        }
+        AccessHistory[] entries = merge(runs, sizes, limit);
+        DynamicArray<AccessHistory> result = new DynamicArray<>(Math.max(1, entries.length));
+        for (AccessHistory history : entries) {
+            result.add(history);
+        }
+        return result;
+    }
+
+    @Override
+    public void addListener(AccessHistoryListener listener) {
+        for (MonitoringSystem shard : shards) {
+            shard.addListener(listener);
+        }
+    }
+
+    @Override
+    public void removeListener(AccessHistoryListener listener) {
+        for (MonitoringSystem shard : shards) {
+            shard.removeListener(listener);
+        }
+    }
+
+    @Override
+    public int getCurrentSize() {
+        int size = 0;
+        for (MonitoringSystem shard : shards) {
+            size += shard.getCurrentSize();
+        }
+        return size;
+    }
+
+    /**
+     * Sum of the shards' capacities
+     */
+    @Override
+    public int getCapacity() {
+        int capacity = 0;
+        for (MonitoringSystem shard : shards) {
+            capacity += shard.getCapacity();
+        }
+        return capacity;
+    }
+
+    @Override
+    public OperationStats getAddUserStats() {
+        return addUserStats;
+    }
+
+    /**
+     * Rebuilds of the merged snapshot (each also rebuilds the changed shards' snapshots)
+     */
+    @Override
+    public OperationStats getSnapshotStats() {
+        return snapshotStats;
+    }
+
+    @Override
+    public long getCapacityGrowths() {
+        long growths = 0;
+        for (MonitoringSystem shard : shards) {
+            growths += shard.getCapacityGrowths();
+        }
+        return growths;
+    }
+
+    @Override
+    public long getCapacityShrinks() {
+        long shrinks = 0;
+        for (MonitoringSystem shard : shards) {
+            shrinks += shard.getCapacityShrinks();
+        }
+        return shrinks;
+    }
+
+    @Override
+    public boolean addUser(String userId) {
+        long start = System.nanoTime();
+        try {
+            return shardFor(userId).addUser(userId);
+        } finally {
+            addUserStats.record(start);
+        }
+    }
+
+    /**
+     * Fails if the userId is registered, or the email is registered in any shard
+     * Time Complexity: O(k + log n) for k shards
+     */
+    @Override
+    public boolean addUser(AccessHistory user) {
+        long start = System.nanoTime();
+        try {
+            if (user.getEmail() == null) {
+                return shardFor(user.getUserId()).addUser(user);
+            }
+            String email = normalizeEmail(user.getEmail());
+            ReentrantLock lock = emailStripeFor(email);
+            lock.lock();
+            try {
+                for (MonitoringSystem shard : shards) {
+                    if (shard.getUserByEmail(email) != null) {
+                        return false; // Email belongs to another user
+                    }
+                }
+                return shardFor(user.getUserId()).addUser(user);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            addUserStats.record(start);
+        }
+    }
+
+    /**
+     * Adds a batch with the same rules as addUser: users already present, repeated emails
+     * and emails registered in any shard are skipped
+     * Takes every email stripe once to filter the batch, then each shard adds its part
+     * in parallel, in one epoch per shard
+     * Time Complexity: O(m k + (m / k) log n) for m users and k shards, with k-way parallelism
+     */
+    @Override
+    public int addUsers(DynamicArray<AccessHistory> users) {
+        for (ReentrantLock lock : emailStripes) {
+            lock.lock();
+        }
+        try {
+            Map<MonitoringSystem, DynamicArray<AccessHistory>> parts = new HashMap<>();
+            Set<String> batchIds = new HashSet<>();
+            Set<String> batchEmails = new HashSet<>();
+            for (int i = 0; i < users.size(); i++) {
+                AccessHistory user = users.get(i);
+                MonitoringSystem shard = shardFor(user.getUserId());
+                if (batchIds.contains(user.getUserId()) || shard.getUserHistory(user.getUserId()) != null) {
+                    continue;
+                }
+                if (user.getEmail() != null) {
+                    String email = normalizeEmail(user.getEmail());
+                    if (batchEmails.contains(email) || isEmailRegistered(email)) {
+                        continue;
+                    }
+                    batchEmails.add(email);
+                }
+                batchIds.add(user.getUserId());
+                parts.computeIfAbsent(shard, key -> new DynamicArray<>()).add(user);
+            }
+            int added = 0;
+            for (int count : onAllShards(shard -> {
+                DynamicArray<AccessHistory> part = parts.get(shard);
+                return part == null ? 0 : shard.addUsers(part);
+            })) {
+                added += count;
+            }
+            return added;
+        } finally {
+            for (int i = emailStripes.length - 1; i >= 0; i--) {
+                emailStripes[i].unlock();
+            }
+        }
+    }
+
+    private boolean isEmailRegistered(String normalizedEmail) {
+        for (MonitoringSystem shard : shards) {
+            if (shard.getUserByEmail(normalizedEmail) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int refreshLogins(Map<String, LocalDateTime> logins) {
+        Map<MonitoringSystem, Map<String, LocalDateTime>> parts = new HashMap<>();
+        for (Map.Entry<String, LocalDateTime> login : logins.entrySet()) {
+            parts.computeIfAbsent(shardFor(login.getKey()), shard -> new HashMap<>())
+                .put(login.getKey(), login.getValue());
+        }
+        int refreshed = 0;
+        for (int count : onAllShards(shard -> {
+            Map<String, LocalDateTime> part = parts.get(shard);
+            return part == null ? 0 : shard.refreshLogins(part);
+        })) {
+            refreshed += count;
+        }
+        return refreshed;
+    }
+
+    @Override
+    public boolean removeUser(String userId) {
+        return shardFor(userId).removeUser(userId);
+    }
+
+    /**
+     * The idle bound is applied by every shard in parallel. For the size bound, the merged
+     * login order gives the last login time of the oldest user to keep, and every shard
+     * then evicts what logged in before it; users tied with that time are all kept
+     * Time Complexity: O((n - maxEntries) log k + k log n) to find the cutoff, plus the evictions
+     */
+    @Override
+    public int evictExpired(int maxEntries, LocalDateTime idleCutoff) {
+        int evicted = 0;
+        if (idleCutoff != null) {
+            for (int count : onAllShards(shard -> shard.evictExpired(0, idleCutoff))) {
+                evicted += count;
+            }
+        }
+        int excess = getCurrentSize() - maxEntries;
+        if (maxEntries > 0 && excess > 0) {
+            AccessHistory[] oldest = mergeSnapshots(excess + 1);
+            if (oldest.length > excess) {
+                LocalDateTime keepFrom = oldest[excess].getLastLoginTime();
+                for (int count : onAllShards(shard -> shard.evictExpired(0, keepFrom))) {
+                    evicted += count;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public AccessHistory getUserHistory(String userId) {
+        return shardFor(userId).getUserHistory(userId);
+    }
+
+    /**
+     * Time Complexity: O(k) for k shards
+     */
+    @Override
+    public AccessHistory getUserByEmail(String email) {
+        for (MonitoringSystem shard : shards) {
+            AccessHistory history = shard.getUserByEmail(email);
+            if (history != null) {
+                return history;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public DynamicArray<AccessHistory> getDepartmentHistories(String department,
+                                                              LocalDateTime from, LocalDateTime to,
+                                                              LocalDateTime afterTime, String afterUserId,
+                                                              int limit) {
+        return mergePages(onAllShards(shard ->
+            shard.getDepartmentHistories(department, from, to, afterTime, afterUserId, limit)), limit);
+    }
+
+    @Override
+    public Map<String, Integer> getDepartmentCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map<String, Integer> shardCounts : onAllShards(MonitoringSystem::getDepartmentCounts)) {
+            for (Map.Entry<String, Integer> count : shardCounts.entrySet()) {
+                counts.merge(count.getKey(), count.getValue(), Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Sum of the shards' epochs: changes, and only grows, whenever any shard changes
+     */
+    @Override
+    public long getVersion() {
+        long version = 0;
+        for (MonitoringSystem shard : shards) {
+            version += shard.getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Merged view of the shards' snapshots in login order, rebuilt at most once per version
+     * Each shard's part is a consistent cut of that shard; the shards are not cut at the
+     * same instant, which no per-user invariant depends on
+     * Time Complexity: O(1) when current, O(n log k) otherwise
+     */
+    @Override
+    public AccessSnapshot snapshot() {
+        AccessSnapshot current = merged;
+        if (current.getVersion() == getVersion()) {
+            return current;
+        }
+        synchronized (this) {
+            current = merged;
+            if (current.getVersion() == getVersion()) {
+                return current;
+            }
+            long start = System.nanoTime();
+            List<AccessSnapshot> parts = onAllShards(MonitoringSystem::snapshot);
+            long version = 0;
+            for (AccessSnapshot part : parts) {
+                version += part.getVersion();
+            }
+            current = new AccessSnapshot(version, mergeRuns(parts, Integer.MAX_VALUE));
+            merged = current;
+            snapshotStats.record(start);
+            return current;
+        }
+    }
+
+    private AccessHistory[] mergeSnapshots(int limit) {
+        return mergeRuns(onAllShards(MonitoringSystem::snapshot), limit);
+    }
+
+    private static AccessHistory[] mergeRuns(List<AccessSnapshot> parts, int limit) {
+        List<IntFunction<AccessHistory>> runs = new ArrayList<>(parts.size());
+        int[] sizes = new int[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            runs.add(parts.get(i)::get);
+            sizes[i] = parts.get(i).size();
+        }
+        return merge(runs, sizes, limit);
+    }
+
+    @Override
+    public DynamicArray<AccessHistory> getAccessHistoriesAfter(LocalDateTime loginTime, String userId, int limit) {
+        return mergePages(onAllShards(shard -> shard.getAccessHistoriesAfter(loginTime, userId, limit)), limit);
+    }
+
+    @Override
+    public DynamicArray<AccessHistory> getAccessHistoriesBetween(LocalDateTime from, LocalDateTime to,
+                                                                 LocalDateTime afterTime, String afterUserId,
+                                                                 int limit) {
+        return mergePages(onAllShards(shard ->
+            shard.getAccessHistoriesBetween(from, to, afterTime, afterUserId, limit)), limit);
+    }
+
+    @Override
+    public String toString() {
+        return "Sharded Monitoring System: " + getSystemName() + " (" + shards.length + " shards)\n"
+            + "Current Users: " + getCurrentSize() + " (Capacity: " + getCapacity() + ")";
+    }
+}
@@ -3,10 +3,21 @@ package com.example.practical11;
 /**
  * UserActivity class containing main function that drives events
  * Creates a monitoring system instance and demonstrates add, remove, and print functionality
+ * With "load" as the first argument it runs the login-storm load generator instead (see LoadGenerator)
  */
 public class UserActivity {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            runDemo();
+        } else if (args[0].equals("load")) {
+            LoadGenerator.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            LoadGenerator.printUsage();
+        }
+    }
+
+    private static void runDemo() {
         System.out.println("=== Access Monitoring System Demo ===\n");
 
         // Create monitoring system instance
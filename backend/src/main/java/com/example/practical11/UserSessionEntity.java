@@ -5,18 +5,35 @@ import java.time.LocalDateTime;
 
 /**
  * JPA Entity for User Sessions - represents database table for user access sessions
+ * Ids come from the user_sessions_seq sequence in blocks of ID_ALLOCATION_SIZE (pooled-lo:
+ * a sequence value v reserves v .. v + ID_ALLOCATION_SIZE - 1), so inserts can be batched;
+ * SessionWriteBehind reserves its ids from the same sequence the same way
  */
 @Entity
-@Table(name = "user_sessions")
+@Table(name = "user_sessions", indexes = {
+    @Index(name = "idx_user_sessions_user_login", columnList = "user_id, login_time"),
+    @Index(name = "idx_user_sessions_user_status", columnList = "user_id, session_status"),
+    @Index(name = "idx_user_sessions_status", columnList = "session_status"),
+    @Index(name = "idx_user_sessions_login", columnList = "login_time, id"),
+    @Index(name = "idx_user_sessions_department_login", columnList = "department, login_time")
+})
 public class UserSessionEntity {
 
+    public static final String ID_SEQUENCE = "user_sessions_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_sessions_id")
+    @SequenceGenerator(name = "user_sessions_id", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
     private String userId;
 
+    // Copied from the registered user at login so department filters stay in the database
+    @Column(name = "department")
+    private String department;
+
     @Column(name = "login_time", nullable = false)
     private LocalDateTime loginTime;
 
@@ -39,6 +56,11 @@ public class UserSessionEntity {
         this.sessionStatus = SessionStatus.ACTIVE;
     }
 
+    public UserSessionEntity(String userId, String department, LocalDateTime loginTime) {
+        this(userId, loginTime);
+        this.department = department;
+    }
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -46,6 +68,9 @@ public class UserSessionEntity {
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
 
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
     public LocalDateTime getLoginTime() { return loginTime; }
     public void setLoginTime(LocalDateTime loginTime) { this.loginTime = loginTime; }
 
@@ -67,6 +92,7 @@ public class UserSessionEntity {
         return "UserSessionEntity{" +
                 "id=" + id +
                 ", userId='" + userId + '\'' +
+                ", department='" + department + '\'' +
                 ", loginTime=" + loginTime +
                 ", logoutTime=" + logoutTime +
                 ", sessionStatus=" + sessionStatus +
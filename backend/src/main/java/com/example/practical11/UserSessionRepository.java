@@ -1,29 +1,67 @@
 package com.example.practical11;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for UserSessionEntity
  */
 @Repository
-public interface UserSessionRepository extends JpaRepository<UserSessionEntity, Long> {
+public interface UserSessionRepository extends JpaRepository<UserSessionEntity, Long>, UserSessionRepositoryCustom {
 
     /**
      * Find all sessions for a specific user
      */
     List<UserSessionEntity> findByUserIdOrderByLoginTimeDesc(String userId);
 
+    /**
+     * Stream all sessions, newest first, through a database cursor
+     * Must be consumed inside a transaction and closed afterwards
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM UserSessionEntity s ORDER BY s.loginTime DESC")
+    Stream<UserSessionEntity> streamAllOrderByLoginTimeDesc();
+
+    /**
+     * Check whether a session with this exact login time was already persisted
+     */
+    boolean existsByUserIdAndLoginTime(String userId, LocalDateTime loginTime);
+
     /**
      * Find active sessions for a user
      */
     List<UserSessionEntity> findByUserIdAndSessionStatus(String userId, UserSessionEntity.SessionStatus status);
 
+    /**
+     * Keys of every session in ACTIVE status: rows of {id, userId, department, loginTime}
+     */
+    @Query("SELECT s.id, s.userId, s.department, s.loginTime FROM UserSessionEntity s " +
+           "WHERE s.sessionStatus = com.example.practical11.UserSessionEntity$SessionStatus.ACTIVE")
+    List<Object[]> findActiveSessionKeys();
+
+    /**
+     * Complete an active session by id in a single UPDATE; returns the number of rows changed
+     * Flushes first, so a session inserted earlier in the same transaction is found
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserSessionEntity s SET s.logoutTime = :logoutTime, " +
+           "s.sessionStatus = com.example.practical11.UserSessionEntity$SessionStatus.COMPLETED " +
+           "WHERE s.id = :id AND s.sessionStatus = com.example.practical11.UserSessionEntity$SessionStatus.ACTIVE")
+    int completeSession(@Param("id") Long id, @Param("logoutTime") LocalDateTime logoutTime);
+
     /**
      * Find all active sessions
      */
@@ -39,6 +77,13 @@ public interface UserSessionRepository extends JpaRepository<UserSessionEntity,
      */
     long countByUserId(String userId);
 
+    /**
+     * Per-user session totals: rows of {userId, total sessions, sessions in the given status}
+     */
+    @Query("SELECT s.userId, COUNT(s), SUM(CASE WHEN s.sessionStatus = :status THEN 1 ELSE 0 END) " +
+           "FROM UserSessionEntity s GROUP BY s.userId")
+    List<Object[]> countSessionsPerUser(@Param("status") UserSessionEntity.SessionStatus status);
+
     /**
      * Find sessions within date range
      */
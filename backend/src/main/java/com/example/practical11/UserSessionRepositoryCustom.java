@@ -0,0 +1,14 @@
+package com.example.practical11;
+
+import java.util.List;
+
+/**
+ * Query fragment for UserSessionRepository that needs a dynamically built WHERE clause
+ */
+public interface UserSessionRepositoryCustom {
+
+    /**
+     * Find one page of sessions, newest first, using keyset pagination
+     */
+    List<UserSessionEntity> findPage(SessionQuery query);
+}
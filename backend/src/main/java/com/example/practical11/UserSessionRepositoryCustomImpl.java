@@ -0,0 +1,64 @@
+package com.example.practical11;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria-based implementation of UserSessionRepositoryCustom
+ * Only the filters that are set become predicates, so each query can use the matching
+ * index on user_sessions instead of a generic "param IS NULL OR ..." plan
+ */
+class UserSessionRepositoryCustomImpl implements UserSessionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserSessionEntity> findPage(SessionQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSessionEntity> cq = cb.createQuery(UserSessionEntity.class);
+        Root<UserSessionEntity> session = cq.from(UserSessionEntity.class);
+        Path<LocalDateTime> loginTime = session.get("loginTime");
+        Path<Long> id = session.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        if (query.getUserId() != null) {
+            where.add(cb.equal(session.get("userId"), query.getUserId()));
+        }
+        if (query.getDepartment() != null) {
+            where.add(cb.equal(session.get("department"), query.getDepartment()));
+        }
+        if (query.getStatus() != null) {
+            where.add(cb.equal(session.get("sessionStatus"), query.getStatus()));
+        }
+        if (query.getFrom() != null) {
+            where.add(cb.greaterThanOrEqualTo(loginTime, query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            where.add(cb.lessThan(loginTime, query.getTo()));
+        }
+        if (query.getAfterLoginTime() != null) {
+            // Keyset: strictly after the cursor in (loginTime DESC, id DESC) order
+            where.add(cb.or(
+                cb.lessThan(loginTime, query.getAfterLoginTime()),
+                cb.and(cb.equal(loginTime, query.getAfterLoginTime()), cb.lessThan(id, query.getAfterId()))));
+        }
+
+        cq.select(session)
+            .where(where.toArray(new Predicate[0]))
+            .orderBy(cb.desc(loginTime), cb.desc(id));
+
+        return entityManager.createQuery(cq)
+            .setMaxResults(query.getLimit())
+            .getResultList();
+    }
+}
@@ -1,16 +1,35 @@
 package com.example.practical11;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing user sessions with database persistence
+ * Login/logout write through by default; with sessions.write-behind.enabled they are
+ * acknowledged from memory and persisted in batches by SessionWriteBehind
+ *
+ * Reads that must see queued write-behind events flush them before opening their own
+ * transaction: the flush commits on a second connection, and holding one while waiting
+ * for another can exhaust the pool
  */
 @Service
 @Transactional
@@ -19,110 +38,329 @@ public class UserSessionService {
     @Autowired
     private UserSessionRepository sessionRepository;
 
+    @Autowired
+    private SessionStatistics sessionStatistics;
+
+    @Autowired
+    private SessionWriteBehind writeBehind;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private SessionAnalytics sessionAnalytics;
+
+    @Autowired
+    private ChangeEventBus changeEventBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    // Sessions inserted by transactions that have not committed yet; they are already indexed
+    private final Set<ActiveSessionIndex.ActiveSession> uncommittedLogins = ConcurrentHashMap.newKeySet();
+
+    // Rollback actions run in reverse registration order (see onRollback)
+    private static final AtomicInteger rollbackOrder = new AtomicInteger();
+
+    // Latency of login/logout inside the transaction (the commit is not included)
+    private final OperationStats startSessionStats = new OperationStats();
+    private final OperationStats endSessionStats = new OperationStats();
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
     /**
      * Start a new user session (login)
      */
     public UserSessionEntity startSession(String userId) {
-        // Check if user already has an active session
-        List<UserSessionEntity> activeSessions = sessionRepository
-            .findByUserIdAndSessionStatus(userId, UserSessionEntity.SessionStatus.ACTIVE);
+        return startSession(userId, null);
+    }
 
-        if (!activeSessions.isEmpty()) {
-            // Return existing active session
-            return activeSessions.get(0);
-        }
+    /**
+     * Start a new user session (login), recording the user's department for filtering
+     */
+    public UserSessionEntity startSession(String userId, String department) {
+        long start = System.nanoTime();
+        try {
+            if (writeBehind.isEnabled()) {
+                return writeBehind.login(userId, department);
+            }
 
-        // Create new session
-        UserSessionEntity newSession = new UserSessionEntity(userId, LocalDateTime.now());
-        return sessionRepository.save(newSession);
+            // Reserve the user in the index before inserting: a concurrent login, or a later
+            // login in the same transaction (an ingestion batch), finds this session instead
+            // of inserting a second ACTIVE row
+            LocalDateTime loginTime = LocalDateTime.now();
+            ActiveSessionIndex.ActiveSession reserved =
+                new ActiveSessionIndex.ActiveSession(null, userId, department, loginTime);
+            ActiveSessionIndex.ActiveSession active = activeSessionIndex.putIfAbsent(reserved);
+            if (active != null) {
+                // Return existing active session
+                return active.toEntity();
+            }
+
+            // Create new session
+            UserSessionEntity saved;
+            try {
+                saved = sessionRepository.save(new UserSessionEntity(userId, department, loginTime));
+            } catch (RuntimeException e) {
+                activeSessionIndex.remove(reserved);
+                throw e;
+            }
+            ActiveSessionIndex.ActiveSession indexed =
+                new ActiveSessionIndex.ActiveSession(saved.getId(), userId, department, loginTime);
+            activeSessionIndex.replace(reserved, indexed);
+            uncommittedLogins.add(indexed);
+            onRollback(() -> {
+                uncommittedLogins.remove(indexed);
+                activeSessionIndex.remove(indexed);
+            });
+            afterCommit(() -> {
+                uncommittedLogins.remove(indexed);
+                sessionStatistics.sessionStarted(userId);
+                changeEventBus.sessionStarted(indexed.getId(), userId, department, loginTime);
+            });
+            return saved;
+        } finally {
+            startSessionStats.record(start);
+        }
     }
 
     /**
      * End user session (logout)
      */
     public boolean endSession(String userId) {
-        List<UserSessionEntity> activeSessions = sessionRepository
-            .findByUserIdAndSessionStatus(userId, UserSessionEntity.SessionStatus.ACTIVE);
+        long start = System.nanoTime();
+        try {
+            if (writeBehind.isEnabled()) {
+                return writeBehind.logout(userId);
+            }
 
-        if (activeSessions.isEmpty()) {
-            return false; // No active session found
-        }
+            ActiveSessionIndex.ActiveSession active = activeSessionIndex.get(userId);
+            if (active == null || active.getId() == null) {
+                return false; // No active session found, or its login is still being inserted
+            }
+            // Claim the session, so a concurrent logout, or a later logout in the same
+            // transaction, does not complete it again
+            if (!activeSessionIndex.remove(active)) {
+                return false;
+            }
 
-        UserSessionEntity session = activeSessions.get(0);
-        session.setLogoutTime(LocalDateTime.now());
-        sessionRepository.save(session);
-        return true;
+            LocalDateTime logoutTime = LocalDateTime.now();
+            int updated = sessionRepository.completeSession(active.getId(), logoutTime);
+            if (updated == 0) {
+                if (uncommittedLogins.contains(active)) {
+                    // Logged in by another transaction that has not committed yet
+                    activeSessionIndex.putIfAbsent(active);
+                }
+                return false;
+            }
+            onRollback(() -> activeSessionIndex.putIfAbsent(active));
+            afterCommit(() -> {
+                sessionStatistics.sessionEnded(userId);
+                sessionAnalytics.sessionCompleted(userId, active.getDepartment(), active.getLoginTime(), logoutTime);
+                changeEventBus.sessionEnded(active.getId(), userId, active.getDepartment(), active.getLoginTime(), logoutTime);
+            });
+            return true;
+        } finally {
+            endSessionStats.record(start);
+        }
     }
 
     /**
      * Get user's session history
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<UserSessionEntity> getUserSessionHistory(String userId) {
-        return sessionRepository.findByUserIdOrderByLoginTimeDesc(userId);
+        writeBehind.flush();
+        return readOnlyTransaction.execute(status -> sessionRepository.findByUserIdOrderByLoginTimeDesc(userId));
+    }
+
+    /**
+     * Get one page of sessions matching the query, newest first
+     * Time Complexity: O(page) via keyset pagination on an index
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<UserSessionEntity> getSessionPage(SessionQuery query) {
+        writeBehind.flush();
+        return readOnlyTransaction.execute(status -> sessionRepository.findPage(query));
     }
 
     /**
      * Get all sessions (for admin)
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<UserSessionEntity> getAllSessions() {
-        return sessionRepository.findAll().stream()
-            .sorted((a, b) -> b.getLoginTime().compareTo(a.getLoginTime()))
-            .collect(Collectors.toList());
+        writeBehind.flush();
+        return readOnlyTransaction.execute(status ->
+            sessionRepository.findAll(Sort.by(Sort.Direction.DESC, "loginTime")));
+    }
+
+    /**
+     * Visit all sessions, newest first, without materializing the table
+     * Rows are read through a database cursor and detached once visited, so memory
+     * stays constant regardless of row count
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void forEachSession(Consumer<UserSessionEntity> action) {
+        writeBehind.flush();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UserSessionEntity> sessions = sessionRepository.streamAllOrderByLoginTimeDesc()) {
+                sessions.forEach(session -> {
+                    action.accept(session);
+                    entityManager.detach(session);
+                });
+            }
+        });
     }
 
     /**
      * Check if user has active session
+     * Time Complexity: O(1), answered from the active-session index
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean hasActiveSession(String userId) {
-        return !sessionRepository
-            .findByUserIdAndSessionStatus(userId, UserSessionEntity.SessionStatus.ACTIVE)
-            .isEmpty();
+        return activeSessionIndex.contains(userId);
     }
 
     /**
      * Get active sessions count
+     * Time Complexity: O(1), answered from the active-session index
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getActiveSessionsCount() {
-        return sessionRepository.findBySessionStatus(UserSessionEntity.SessionStatus.ACTIVE).size();
+        return activeSessionIndex.size();
     }
 
     /**
      * Delete all sessions for a user (when user is deleted)
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteUserSessions(String userId) {
-        sessionRepository.deleteByUserId(userId);
+        writeBehind.flush(); // Queued events must not re-insert rows after the delete
+        transaction.executeWithoutResult(status -> {
+            sessionRepository.deleteByUserId(userId);
+            afterCommit(() -> {
+                activeSessionIndex.remove(userId);
+                sessionStatistics.userSessionsDeleted(userId);
+                sessionAnalytics.userSessionsDeleted(userId);
+                changeEventBus.sessionsDeleted(userId);
+            });
+        });
     }
 
     /**
      * End all active sessions (application shutdown)
      */
     @PreDestroy
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void endAllActiveSessions() {
-        List<UserSessionEntity> activeSessions = sessionRepository
-            .findBySessionStatus(UserSessionEntity.SessionStatus.ACTIVE);
+        writeBehind.flush();
+        transaction.executeWithoutResult(status -> {
+            List<UserSessionEntity> activeSessions = sessionRepository
+                .findBySessionStatus(UserSessionEntity.SessionStatus.ACTIVE);
 
-        LocalDateTime now = LocalDateTime.now();
-        for (UserSessionEntity session : activeSessions) {
-            session.setLogoutTime(now);
-            sessionRepository.save(session);
-        }
+            LocalDateTime now = LocalDateTime.now();
+            for (UserSessionEntity session : activeSessions) {
+                session.setLogoutTime(now);
+                sessionRepository.save(session);
+            }
+            afterCommit(() -> {
+                activeSessionIndex.clear();
+                sessionStatistics.allSessionsEnded();
+                for (UserSessionEntity session : activeSessions) {
+                    sessionAnalytics.sessionCompleted(session.getUserId(), session.getDepartment(),
+                        session.getLoginTime(), session.getLogoutTime());
+                }
+            });
+        });
     }
 
     /**
      * Get session statistics
+     * Served from the incrementally maintained counters, without touching the database
+     * Time Complexity: O(1)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public SessionStats getSessionStats() {
-        List<UserSessionEntity> allSessions = sessionRepository.findAll();
-        List<UserSessionEntity> activeSessions = sessionRepository
-            .findBySessionStatus(UserSessionEntity.SessionStatus.ACTIVE);
-
         return new SessionStats(
-            allSessions.size(),
-            activeSessions.size(),
-            allSessions.stream().mapToLong(s -> s.getUserId().hashCode()).distinct().count()
+            sessionStatistics.getTotalSessions(),
+            sessionStatistics.getActiveSessions(),
+            sessionStatistics.getUniqueUsers()
         );
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public OperationStats getStartSessionStats() {
+        return startSessionStats;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public OperationStats getEndSessionStats() {
+        return endSessionStats;
+    }
+
+    /**
+     * Version of the session data; changes whenever a session starts, ends or is deleted
+     * Time Complexity: O(1)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getSessionVersion() {
+        return sessionStatistics.getVersion();
+    }
+
+    /**
+     * Run an action once the current transaction commits, or immediately without one,
+     * so in-memory state never reflects a rolled-back write
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Run an action if the current transaction rolls back, to undo an in-memory change made
+     * inside it; actions registered later run first, so a transaction that changed the same
+     * user's entry several times (an ingestion batch) restores it exactly
+     */
+    private void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // Synchronizations run in ascending order
+        int order = -(rollbackOrder.incrementAndGet() & Integer.MAX_VALUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return order;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
     /**
      * Session statistics DTO
      */
@@ -0,0 +1,24 @@
+-- Session history (UserSessionEntity)
+-- Ids are reserved in blocks of 50 (pooled-lo): must match UserSessionEntity.ID_ALLOCATION_SIZE
+CREATE SEQUENCE user_sessions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE user_sessions (
+    id             BIGINT       NOT NULL PRIMARY KEY,
+    user_id        VARCHAR(255) NOT NULL,
+    department     VARCHAR(255),
+    login_time     TIMESTAMP(6) NOT NULL,
+    logout_time    TIMESTAMP(6),
+    session_status VARCHAR(16)  NOT NULL CHECK (session_status IN ('ACTIVE', 'COMPLETED'))
+);
+
+-- findByUserIdOrderByLoginTimeDesc, existsByUserIdAndLoginTime, findSessionsInDateRange,
+-- countByUserId, deleteByUserId, countSessionsPerUser (GROUP BY user_id)
+CREATE INDEX idx_user_sessions_user_login ON user_sessions (user_id, login_time);
+-- findByUserIdAndSessionStatus
+CREATE INDEX idx_user_sessions_user_status ON user_sessions (user_id, session_status);
+-- findBySessionStatus, findActiveSessionKeys
+CREATE INDEX idx_user_sessions_status ON user_sessions (session_status);
+-- streamAllOrderByLoginTimeDesc and findPage keyset pagination (login_time DESC, id DESC)
+CREATE INDEX idx_user_sessions_login ON user_sessions (login_time, id);
+-- findPage by department and login time range
+CREATE INDEX idx_user_sessions_department_login ON user_sessions (department, login_time);
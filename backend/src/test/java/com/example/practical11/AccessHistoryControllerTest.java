@@ -0,0 +1,105 @@
+package com.example.practical11;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:access-history-controller-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "monitoring.persistence.enabled=false"
+})
+class AccessHistoryControllerTest {
+
+    @Autowired
+    private AccessHistoryController controller;
+
+    @Autowired
+    private MonitoringSystem monitoringSystem;
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    /**
+     * A user who logs in every day is not idle, even if they registered long ago
+     */
+    @Test
+    void loginKeepsUserThroughIdleRetention() {
+        LocalDateTime registered = LocalDateTime.now().minusDays(30);
+        monitoringSystem.addUser(new AccessHistory("daily-user", "Daily", "daily@example.com", "dept", registered));
+        monitoringSystem.addUser(new AccessHistory("idle-user", "Idle", "idle@example.com", "dept", registered));
+
+        Map<String, Object> response = controller.userLogin(Map.of("userId", "daily-user")).getBody();
+        assertEquals(true, response.get("success"));
+        assertTrue(monitoringSystem.getUserHistory("daily-user").getLastLoginTime().isAfter(registered));
+
+        // The same cutoff RetentionSweeper uses with monitoring.retention.max-idle=1d
+        assertEquals(1, monitoringSystem.evictExpired(0, LocalDateTime.now().minusDays(1)));
+        assertNotNull(monitoringSystem.getUserHistory("daily-user"));
+        assertNull(monitoringSystem.getUserHistory("idle-user"));
+    }
+
+    @Test
+    void importCountsEmailConflictsApartFromExistingUsers() throws IOException {
+        monitoringSystem.addUser(new AccessHistory("import-existing", "Existing", "existing@example.com", "dept"));
+        String body = String.join("\n",
+            "{\"userId\":\"import-existing\",\"name\":\"A\",\"email\":\"other@example.com\",\"department\":\"dept\"}",
+            "{\"userId\":\"import-taken\",\"name\":\"B\",\"email\":\"EXISTING@example.com\",\"department\":\"dept\"}",
+            "{\"userId\":\"import-new\",\"name\":\"C\",\"email\":\"new@example.com\",\"department\":\"dept\"}",
+            "{\"userId\":\"import-twin\",\"name\":\"D\",\"email\":\"new@example.com\",\"department\":\"dept\"}",
+            "{\"userId\":\"\",\"name\":\"E\",\"email\":\"e@example.com\",\"department\":\"dept\"}");
+
+        Map<String, Object> response = controller.importUsers("application/x-ndjson",
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))).getBody();
+        assertEquals(5L, response.get("records"));
+        assertEquals(1, response.get("imported"));
+        assertEquals(1L, response.get("existing"));
+        assertEquals(2L, response.get("emailConflicts"));
+        assertEquals(1L, response.get("rejected"));
+        assertNotNull(monitoringSystem.getUserHistory("import-new"));
+        assertNull(monitoringSystem.getUserHistory("import-taken"));
+    }
+
+    /**
+     * Without paging parameters a user's whole history comes back in one response, which is
+     * what the user portal expects; with them it is paged
+     */
+    @Test
+    void userSessionsAreUnpagedWithoutPagingParameters() throws IOException {
+        int sessions = SessionQuery.DEFAULT_LIMIT + 20;
+        for (int i = 0; i < sessions; i++) {
+            userSessionService.startSession("history-user", "dept");
+            userSessionService.endSession("history-user");
+        }
+
+        ResponseEntity<?> all = controller.getUserSessions("history-user", null, null, null, null, null);
+        assertNull(all.getHeaders().getFirst(AccessHistoryController.NEXT_CURSOR_HEADER));
+        assertEquals(sessions, readArray(all).size());
+
+        ResponseEntity<?> firstPage = controller.getUserSessions("history-user", null, 50, null, null, null);
+        assertNotNull(firstPage.getHeaders().getFirst(AccessHistoryController.NEXT_CURSOR_HEADER));
+        assertEquals(50, readArray(firstPage).size());
+    }
+
+    private static JsonNode readArray(ResponseEntity<?> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        return new ObjectMapper().readTree(out.toByteArray());
+    }
+}
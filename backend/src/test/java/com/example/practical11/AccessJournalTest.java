@@ -0,0 +1,160 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery of the monitoring journal: journal only, snapshot plus tail, and a torn record
+ * Journals are abandoned without close() to simulate a crash; the mapped pages are in the
+ * page cache, which is what a restarted process would read
+ */
+class AccessJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096; // Small, so tests roll across segments
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversJournaledChangesAfterCrash() throws IOException {
+        MonitoringSystem system = open();
+        for (int i = 0; i < 200; i++) {
+            system.addUser(user(i));
+        }
+        for (int i = 0; i < 200; i += 3) {
+            system.removeUser("user-" + i);
+        }
+        system.refreshLogins(Map.of("user-1", BASE.plusDays(1)));
+
+        assertTrue(countFiles("journal-") > 1, "expected the journal to roll");
+        assertRecovered(system, recover());
+        assertEquals(BASE.plusDays(1), recover().get("user-1").getLastLoginTime());
+    }
+
+    @Test
+    void recoversSnapshotPlusJournalTail() throws IOException {
+        AccessJournal journal = new AccessJournal(directory, SEGMENT_SIZE);
+        MonitoringSystem system = open(journal);
+        for (int i = 0; i < 100; i++) {
+            system.addUser(user(i));
+        }
+        journal.compact(system);
+        assertEquals(1, countFiles("snapshot-"));
+
+        for (int i = 100; i < 150; i++) {
+            system.addUser(user(i));
+        }
+        system.removeUser("user-5");
+        assertRecovered(system, recover());
+    }
+
+    @Test
+    void closeLeavesOnlySnapshot() throws IOException {
+        AccessJournal journal = new AccessJournal(directory, SEGMENT_SIZE);
+        MonitoringSystem system = open(journal);
+        for (int i = 0; i < 50; i++) {
+            system.addUser(user(i));
+        }
+        journal.start(system, 60_000, Long.MAX_VALUE);
+        journal.close();
+
+        assertEquals(1, countFiles("snapshot-"));
+        assertRecovered(system, recover());
+    }
+
+    @Test
+    void stopsAtTornRecord() throws IOException {
+        MonitoringSystem system = open();
+        system.addUser(user(1));
+        system.addUser(user(2));
+        system.addUser(new AccessHistory("last-user", "Last", "last@example.com", "dept", BASE));
+
+        // Corrupt the last record: its checksum no longer matches, so replay ends before it
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().startsWith("journal-")).findFirst().get();
+        }
+        byte[] content = Files.readAllBytes(segment);
+        int offset = indexOf(content, "last@example.com".getBytes(StandardCharsets.UTF_8));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(offset);
+            file.write('X');
+        }
+
+        Map<String, AccessHistory> recovered = recover();
+        assertEquals(2, recovered.size());
+        assertNotNull(recovered.get("user-1"));
+        assertNotNull(recovered.get("user-2"));
+    }
+
+    private MonitoringSystem open() throws IOException {
+        return open(new AccessJournal(directory, SEGMENT_SIZE));
+    }
+
+    private static MonitoringSystem open(AccessJournal journal) throws IOException {
+        MonitoringSystem system = new MonitoringSystem("Journal Test");
+        system.addUsers(journal.recover());
+        system.addListener(journal);
+        return system;
+    }
+
+    private Map<String, AccessHistory> recover() throws IOException {
+        DynamicArray<AccessHistory> recovered = new AccessJournal(directory, SEGMENT_SIZE).recover();
+        Map<String, AccessHistory> users = new HashMap<>();
+        for (int i = 0; i < recovered.size(); i++) {
+            users.put(recovered.get(i).getUserId(), recovered.get(i));
+        }
+        return users;
+    }
+
+    private static void assertRecovered(MonitoringSystem expected, Map<String, AccessHistory> recovered) {
+        assertEquals(expected.getCurrentSize(), recovered.size());
+        for (AccessHistory history : expected.snapshot()) {
+            AccessHistory restored = recovered.get(history.getUserId());
+            assertNotNull(restored, history.getUserId());
+            assertEquals(history.getEmail(), restored.getEmail());
+            assertEquals(history.getDepartment(), restored.getDepartment());
+            assertEquals(history.getLastLoginTime(), restored.getLastLoginTime());
+        }
+    }
+
+    private static AccessHistory user(int i) {
+        return new AccessHistory("user-" + i, "User " + i, "user-" + i + "@example.com", "dept-" + i % 4,
+            BASE.plusMinutes(i));
+    }
+
+    private long countFiles(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).count();
+        }
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern) {
+        for (int i = content.length - pattern.length; i >= 0; i--) {
+            int j = 0;
+            while (j < pattern.length && content[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        throw new AssertionError("pattern not found");
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ingestion with Ack.APPLIED: what callers waiting on their batch observe, and the
+ * hand-off between producers and stop()
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:login-ingestion-applied-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "monitoring.persistence.enabled=false",
+    "sessions.ingestion.enabled=true",
+    "sessions.ingestion.shards=2",
+    "sessions.ingestion.ack=APPLIED",
+    "sessions.ingestion.ack-timeout-ms=10000"
+})
+class LoginIngestionAppliedTest {
+
+    @Autowired
+    private LoginIngestion loginIngestion;
+
+    @Autowired
+    private MonitoringSystem monitoringSystem;
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void lastLoginTimeIsTheSessionsLoginTime() {
+        monitoringSystem.addUser("applied-1");
+        LoginIngestion.Submission submission = loginIngestion.login("applied-1", "dept");
+
+        assertEquals(LoginIngestion.Outcome.APPLIED, submission.getOutcome());
+        UserSessionEntity session = (UserSessionEntity) submission.getResult();
+        assertEquals(session.getLoginTime(), monitoringSystem.getUserHistory("applied-1").getLastLoginTime());
+    }
+
+    /**
+     * The session commits before the access list is refreshed; a failure there must still
+     * answer the waiting caller instead of leaving it to time out
+     */
+    @Test
+    void failedRefreshStillAnswersTheCaller() {
+        monitoringSystem.addUser("applied-boom");
+        AccessHistoryListener failing = new AccessHistoryListener() {
+            @Override
+            public void onUpsert(AccessHistory history) {
+                if ("applied-boom".equals(history.getUserId())) {
+                    throw new IllegalStateException("listener failure");
+                }
+            }
+
+            @Override
+            public void onRemove(String userId) {
+            }
+        };
+        monitoringSystem.addListener(failing);
+        try {
+            LoginIngestion.Submission submission = loginIngestion.login("applied-boom", "dept");
+            assertEquals(LoginIngestion.Outcome.APPLIED, submission.getOutcome());
+            assertTrue(userSessionService.hasActiveSession("applied-boom"));
+        } finally {
+            monitoringSystem.removeListener(failing);
+        }
+    }
+
+    /**
+     * Producers racing stop(): every event is either rejected or applied, none is left
+     * in a buffer whose consumer has exited
+     */
+    @Test
+    void stopLeavesNoAcceptedEventBehind() throws InterruptedException {
+        LoginIngestion ingestion = new LoginIngestion();
+        ReflectionTestUtils.setField(ingestion, "enabled", true);
+        ReflectionTestUtils.setField(ingestion, "shardCount", 2);
+        ReflectionTestUtils.setField(ingestion, "bufferSize", 1024);
+        ReflectionTestUtils.setField(ingestion, "batchSize", 64);
+        ReflectionTestUtils.setField(ingestion, "ack", LoginIngestion.Ack.ENQUEUED);
+        ReflectionTestUtils.setField(ingestion, "ackTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(ingestion, "userSessionService", userSessionService);
+        ReflectionTestUtils.setField(ingestion, "monitoringSystem", monitoringSystem);
+        ReflectionTestUtils.setField(ingestion, "transactionManager", transactionManager);
+        ingestion.start();
+
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int producer = t;
+            Thread thread = new Thread(() -> {
+                for (int n = 0; ; n++) {
+                    LoginIngestion.Outcome outcome = ingestion.login("fence-" + producer + "-" + n, null).getOutcome();
+                    if (outcome == LoginIngestion.Outcome.ACCEPTED) {
+                        accepted.incrementAndGet();
+                    } else if (!ReflectionTestUtils.getField(ingestion, "running").equals(true)) {
+                        return;
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(100);
+        ingestion.stop();
+        for (Thread thread : producers) {
+            thread.join();
+        }
+
+        assertEquals(0, ingestion.getBacklog());
+        long applied = sessionRepository.findAll().stream()
+            .filter(session -> session.getUserId().startsWith("fence-"))
+            .count();
+        assertEquals(accepted.get(), applied);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Login storm through the ingestion buffers: each user's login and logout are published
+ * back to back, so most pairs are applied in the same batch transaction
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:login-ingestion-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "monitoring.persistence.enabled=false",
+    "sessions.ingestion.enabled=true",
+    "sessions.ingestion.shards=2",
+    "sessions.ingestion.ack=ENQUEUED"
+})
+class LoginIngestionTest {
+
+    @Autowired
+    private LoginIngestion loginIngestion;
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @Test
+    void loginAndLogoutInOneBatchCompleteTheSession() throws InterruptedException {
+        int users = 200;
+        for (int i = 0; i < users; i++) {
+            String userId = "storm-" + i;
+            assertEquals(LoginIngestion.Outcome.ACCEPTED, loginIngestion.login(userId, "dept").getOutcome());
+            assertEquals(LoginIngestion.Outcome.ACCEPTED, loginIngestion.logout(userId).getOutcome());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        List<UserSessionEntity> sessions = sessionRepository.findAll();
+        while (sessions.stream().filter(session -> !session.isActive()).count() < users) {
+            assertTrue(System.nanoTime() < deadline, "sessions were not completed: " + sessions.size() + " rows");
+            Thread.sleep(20);
+            sessions = sessionRepository.findAll();
+        }
+
+        assertEquals(users, sessions.size());
+        for (int i = 0; i < users; i++) {
+            assertFalse(userSessionService.hasActiveSession("storm-" + i));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent writers against one MonitoringSystem: no update may be lost or duplicated
+ */
+class MonitoringSystemConcurrencyTest {
+
+    private static final int WRITERS = 32;
+    private static final int USERS_PER_WRITER = 64;
+    private static final int OPERATIONS_PER_WRITER = 5_000;
+
+    /**
+     * Each writer owns its own users, so the expected result of every call is known from
+     * the writer's local model even though all writers share the index, the capacity and
+     * the snapshot epochs; readers take snapshots throughout
+     */
+    @Test
+    void concurrentWritersLoseNoUpdates() throws Exception {
+        MonitoringSystem system = new MonitoringSystem("Concurrency Test");
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<Set<String>>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    return runWriter(system, writer);
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit((Callable<Void>) () -> {
+                    start.await();
+                    while (writing.get()) {
+                        assertConsistent(system.snapshot());
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            Set<String> expected = new HashSet<>();
+            for (Future<Set<String>> writer : writers) {
+                expected.addAll(writer.get(2, TimeUnit.MINUTES));
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(1, TimeUnit.MINUTES);
+            }
+
+            assertEquals(expected.size(), system.getCurrentSize());
+            for (int w = 0; w < WRITERS; w++) {
+                for (int u = 0; u < USERS_PER_WRITER; u++) {
+                    String userId = userId(w, u);
+                    assertEquals(expected.contains(userId), system.getUserHistory(userId) != null, userId);
+                }
+            }
+            AccessSnapshot snapshot = system.snapshot();
+            assertConsistent(snapshot);
+            Set<String> snapshotIds = new HashSet<>();
+            for (AccessHistory history : snapshot) {
+                snapshotIds.add(history.getUserId());
+            }
+            assertEquals(expected, snapshotIds);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writers racing for the same userIds and emails: each is registered exactly once
+     */
+    @Test
+    void contendedRegistrationsSucceedOnce() throws Exception {
+        MonitoringSystem system = new MonitoringSystem("Contention Test");
+        int shared = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    int won = 0;
+                    for (int i = 0; i < shared; i++) {
+                        // Same userId from every writer
+                        if (system.addUser(new AccessHistory("shared-" + i, "Shared", null, "dept"))) {
+                            won++;
+                        }
+                        // Different userIds, same email
+                        if (system.addUser(new AccessHistory("claim-" + writer + "-" + i, "Claim",
+                                "claim-" + i + "@example.com", "dept"))) {
+                            won++;
+                        }
+                    }
+                    return won;
+                }));
+            }
+            start.countDown();
+            int won = 0;
+            for (Future<Integer> writer : writers) {
+                won += writer.get(2, TimeUnit.MINUTES);
+            }
+
+            assertEquals(2 * shared, won);
+            assertEquals(2 * shared, system.getCurrentSize());
+            assertEquals(2 * shared, system.snapshot().size());
+            for (int i = 0; i < shared; i++) {
+                assertNotNull(system.getUserHistory("shared-" + i));
+                assertNotNull(system.getUserByEmail("claim-" + i + "@example.com"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writers repeatedly grow and drain the list, so the capacity shrinks and the hash
+     * index is rebuilt many times while lock-free readers look up users that stay put
+     */
+    @Test
+    void shrinkingKeepsLookupsAndEmailsConsistent() throws Exception {
+        MonitoringSystem system = new MonitoringSystem("Shrink Test");
+        int stable = 50;
+        for (int i = 0; i < stable; i++) {
+            system.addUser(new AccessHistory("stable-" + i, "Stable", "stable-" + i + "@example.com", "dept"));
+        }
+        int writers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                running.add(pool.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int round = 0; round < 10; round++) {
+                        for (int i = 0; i < 500; i++) {
+                            assertTrue(system.addUser(new AccessHistory("churn-" + writer + "-" + i, "Churn",
+                                "churn-" + writer + "-" + i + "@example.com", "dept")));
+                        }
+                        for (int i = 0; i < 500; i++) {
+                            assertTrue(system.removeUser("churn-" + writer + "-" + i));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit((Callable<Void>) () -> {
+                    start.await();
+                    while (writing.get()) {
+                        for (int i = 0; i < stable; i++) {
+                            assertNotNull(system.getUserHistory("stable-" + i));
+                            assertNotNull(system.getUserByEmail("stable-" + i + "@example.com"));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> writer : running) {
+                writer.get(2, TimeUnit.MINUTES);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(1, TimeUnit.MINUTES);
+            }
+
+            assertTrue(system.getCapacityShrinks() > 0);
+            assertEquals(stable, system.getCurrentSize());
+            assertTrue(system.getCapacity() <= 4 * stable);
+            // Emails of removed users are free again; emails of remaining users are still taken
+            assertTrue(system.addUser(new AccessHistory("late", "Late", "churn-0-0@example.com", "dept")));
+            assertFalse(system.addUser(new AccessHistory("late-2", "Late", "STABLE-1@example.com", "dept")));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Set<String> runWriter(MonitoringSystem system, int writer) {
+        Random random = new Random(writer);
+        Set<String> present = new HashSet<>();
+        for (int op = 0; op < OPERATIONS_PER_WRITER; op++) {
+            String userId = userId(writer, random.nextInt(USERS_PER_WRITER));
+            switch (random.nextInt(5)) {
+                case 0:
+                    assertEquals(!present.contains(userId), system.addUser(userId), userId);
+                    present.add(userId);
+                    break;
+                case 1:
+                    assertEquals(!present.contains(userId), system.addUser(new AccessHistory(userId, "User " + userId,
+                        userId + "@example.com", "dept-" + writer % 4)), userId);
+                    present.add(userId);
+                    break;
+                case 2:
+                    assertEquals(present.contains(userId), system.removeUser(userId), userId);
+                    present.remove(userId);
+                    break;
+                case 3: {
+                    DynamicArray<AccessHistory> batch = new DynamicArray<>();
+                    Set<String> batchIds = new HashSet<>();
+                    int expectedAdded = 0;
+                    for (int i = 0; i < 3; i++) {
+                        String batchId = userId(writer, random.nextInt(USERS_PER_WRITER));
+                        batch.add(new AccessHistory(batchId));
+                        if (!present.contains(batchId) && batchIds.add(batchId)) {
+                            expectedAdded++;
+                        }
+                    }
+                    assertEquals(expectedAdded, system.addUsers(batch));
+                    present.addAll(batchIds);
+                    break;
+                }
+                default: {
+                    Map<String, LocalDateTime> logins = new HashMap<>();
+                    for (int i = 0; i < 3; i++) {
+                        logins.put(userId(writer, random.nextInt(USERS_PER_WRITER)), LocalDateTime.now());
+                    }
+                    int expectedRefreshed = 0;
+                    for (String loginId : logins.keySet()) {
+                        if (present.contains(loginId)) {
+                            expectedRefreshed++;
+                        }
+                    }
+                    assertEquals(expectedRefreshed, system.refreshLogins(logins));
+                    break;
+                }
+            }
+            if (present.contains(userId)) {
+                assertNotNull(system.getUserHistory(userId), userId);
+            } else {
+                assertNull(system.getUserHistory(userId), userId);
+            }
+        }
+        return present;
+    }
+
+    /**
+     * A snapshot holds each user once, in ascending last login order
+     */
+    private static void assertConsistent(AccessSnapshot snapshot) {
+        Set<String> seen = new HashSet<>();
+        AccessHistory previous = null;
+        for (AccessHistory history : snapshot) {
+            assertTrue(seen.add(history.getUserId()), "duplicate " + history.getUserId());
+            if (previous != null) {
+                assertFalse(history.getLastLoginTime().isBefore(previous.getLastLoginTime()),
+                    "out of order at " + history.getUserId());
+            }
+            previous = history;
+        }
+        assertEquals(snapshot.size(), seen.size());
+    }
+
+    private static String userId(int writer, int user) {
+        return "w" + writer + "-u" + user;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    @Test
+    void rejectsWhenFullAndDrainsInOrder() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(5);
+        assertEquals(8, buffer.capacity()); // Rounded up to a power of two
+        assertTrue(buffer.isEmpty());
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(8));
+        assertEquals(8, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(Arrays.asList(0, 1, 2), drained);
+
+        // Freed slots are reusable after wrapping around
+        assertTrue(buffer.offer(8));
+        assertTrue(buffer.offer(9));
+        drained.clear();
+        assertEquals(7, buffer.drainTo(drained, 100));
+        assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8, 9), drained);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.size());
+    }
+
+    /**
+     * Many producers against one consumer: nothing lost or duplicated, and each producer's
+     * elements arrive in the order it offered them
+     */
+    @Test
+    void concurrentProducersKeepPerProducerOrder() throws Exception {
+        int producers = 6;
+        int perProducer = 50_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                running.add(pool.submit(() -> {
+                    for (long i = 0; i < perProducer; ) {
+                        if (buffer.offer(new long[] { producer, i })) {
+                            i++;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            long[] next = new long[producers];
+            long received = 0;
+            List<long[]> batch = new ArrayList<>();
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+            while (received < (long) producers * perProducer) {
+                assertTrue(System.nanoTime() < deadline, "timed out after " + received + " elements");
+                batch.clear();
+                received += buffer.drainTo(batch, 256);
+                for (long[] element : batch) {
+                    int producer = (int) element[0];
+                    assertEquals(next[producer], element[1], "producer " + producer);
+                    next[producer]++;
+                }
+            }
+            for (Future<?> producer : running) {
+                producer.get(1, TimeUnit.MINUTES);
+            }
+            assertTrue(buffer.isEmpty());
+            for (long count : next) {
+                assertEquals(perProducer, count);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OffHeapAccessStore against a HashMap oracle: open addressing with colliding hashes,
+ * backward-shift deletion, slot reuse, stale views and the department dictionary
+ */
+class OffHeapAccessStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        OffHeapAccessStore store = new OffHeapAccessStore();
+        Map<String, AccessHistory> oracle = new HashMap<>();
+        List<String> keys = collidingKeys(6); // 64 keys with one hashCode, plus plain ones below
+        for (int i = 0; i < 400; i++) {
+            keys.add("user-" + i);
+        }
+        Random random = new Random(7);
+
+        for (int step = 0; step < 50_000; step++) {
+            String userId = keys.get(random.nextInt(keys.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1: {
+                    AccessHistory user = new AccessHistory(userId,
+                        random.nextBoolean() ? null : "Name " + random.nextInt(100),
+                        random.nextBoolean() ? null : userId + "@example.com",
+                        random.nextInt(5) == 0 ? null : "dept-" + random.nextInt(8),
+                        BASE.plusSeconds(random.nextInt(1_000_000)));
+                    assertEquals(!oracle.containsKey(userId), store.put(user), "put " + userId);
+                    oracle.put(userId, user);
+                    break;
+                }
+                case 2:
+                    assertEquals(oracle.remove(userId) != null, store.remove(userId), "remove " + userId);
+                    break;
+                default: {
+                    LocalDateTime loginTime = BASE.plusSeconds(random.nextInt(1_000_000));
+                    AccessHistory current = oracle.get(userId);
+                    assertEquals(current != null, store.touch(userId, loginTime), "touch " + userId);
+                    if (current != null) {
+                        oracle.put(userId, new AccessHistory(userId, current.getName(), current.getEmail(),
+                            current.getDepartment(), loginTime));
+                    }
+                    break;
+                }
+            }
+            if (step % 1000 == 0) {
+                assertSameContent(oracle, store);
+            }
+        }
+        assertSameContent(oracle, store);
+    }
+
+    /**
+     * Removing from the middle of a probe run of identical hashes must not hide the
+     * entries after it, with no tombstones left behind
+     */
+    @Test
+    void backwardShiftDeletionKeepsProbeRunsReachable() {
+        OffHeapAccessStore store = new OffHeapAccessStore();
+        List<String> keys = collidingKeys(4);
+        for (String key : keys) {
+            assertTrue(store.put(new AccessHistory(key, BASE)));
+        }
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertTrue(store.remove(keys.get(i)));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i % 2 == 1, store.contains(keys.get(i)), keys.get(i));
+        }
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertTrue(store.put(new AccessHistory(keys.get(i), BASE)));
+        }
+        assertEquals(keys.size(), store.size());
+    }
+
+    @Test
+    void removedSlotsAreReusedBeforeNewOnes() {
+        OffHeapAccessStore store = new OffHeapAccessStore();
+        for (int i = 0; i < 1000; i++) {
+            store.put(new AccessHistory("u" + i, BASE));
+        }
+        long offHeap = store.getOffHeapBytes();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(store.remove("u" + i));
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(store.put(new AccessHistory("u" + i, BASE)));
+            }
+        }
+        assertEquals(1000, store.size());
+
+        // Exactly the freed slots were handed out again: iteration still finds 1000 live records
+        int live = 0;
+        for (AccessHistory ignored : store) {
+            live++;
+        }
+        assertEquals(1000, live);
+        assertEquals(offHeap, store.getOffHeapBytes());
+    }
+
+    @Test
+    void staleViewsFailAfterRemoval() {
+        OffHeapAccessStore store = new OffHeapAccessStore();
+        store.put(new AccessHistory("alice", "Alice", "alice@example.com", "dept", BASE));
+        AccessHistory view = store.get("alice");
+        assertEquals("Alice", view.getName());
+        assertThrows(UnsupportedOperationException.class, () -> view.setName("Other"));
+
+        assertTrue(store.remove("alice"));
+        assertThrows(IllegalStateException.class, view::getName);
+
+        // The slot now belongs to another user; the old view must not read it
+        store.put(new AccessHistory("bob", "Bob", null, "dept", BASE));
+        assertThrows(IllegalStateException.class, view::getUserId);
+        assertEquals("Bob", store.get("bob").getName());
+
+        // A re-added alice is a new record; views taken now work
+        store.put(new AccessHistory("alice", "Alice 2", null, null, BASE));
+        assertThrows(IllegalStateException.class, view::getLastLoginTime);
+        assertEquals("Alice 2", store.get("alice").getName());
+        assertNull(store.get("alice").getDepartment());
+    }
+
+    @Test
+    void departmentDictionaryGrowsPastShortRange() {
+        OffHeapAccessStore store = new OffHeapAccessStore();
+        int departments = 70_000; // More codes than fit in 16 bits
+        for (int i = 0; i < departments; i++) {
+            store.put(new AccessHistory("u" + i, null, null, "dept-" + i, BASE));
+        }
+        for (int i = 0; i < departments; i += 997) {
+            assertEquals("dept-" + i, store.get("u" + i).getDepartment());
+        }
+        assertEquals("dept-" + (departments - 1), store.get("u" + (departments - 1)).getDepartment());
+    }
+
+    @Test
+    void oversizedFieldsAreRejectedAndStringsSpanArenaChunks() {
+        OffHeapAccessStore store = new OffHeapAccessStore();
+        String tooLong = "x".repeat(0xFFFF);
+        assertThrows(IllegalArgumentException.class, () -> store.put(new AccessHistory("big", tooLong, null, null, BASE)));
+        assertFalse(store.contains("big"));
+        assertThrows(IllegalArgumentException.class, () -> store.put(new AccessHistory(null, BASE)));
+
+        // 200 names of 60000 bytes fill several 4 MiB arena chunks
+        String name = "n".repeat(60_000);
+        for (int i = 0; i < 200; i++) {
+            store.put(new AccessHistory("long-" + i, name + i, "long-" + i + "@example.com", "dept", BASE));
+        }
+        for (int i = 0; i < 200; i++) {
+            AccessHistory view = store.get("long-" + i);
+            assertEquals(name + i, view.getName());
+            assertEquals("long-" + i + "@example.com", view.getEmail());
+        }
+        assertTrue(store.getOffHeapBytes() > 3L * (1 << 22));
+    }
+
+    /**
+     * 2^blocks distinct strings with the same hashCode ("Aa" and "BB" hash alike)
+     */
+    private static List<String> collidingKeys(int blocks) {
+        List<String> keys = new ArrayList<>();
+        keys.add("");
+        for (int b = 0; b < blocks; b++) {
+            List<String> longer = new ArrayList<>();
+            for (String key : keys) {
+                longer.add(key + "Aa");
+                longer.add(key + "BB");
+            }
+            keys = longer;
+        }
+        return keys;
+    }
+
+    private static void assertSameContent(Map<String, AccessHistory> oracle, OffHeapAccessStore store) {
+        assertEquals(oracle.size(), store.size());
+        for (AccessHistory expected : oracle.values()) {
+            AccessHistory actual = store.get(expected.getUserId());
+            assertNotNull(actual, expected.getUserId());
+            assertEquals(expected.getUserId(), actual.getUserId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getEmail(), actual.getEmail());
+            assertEquals(expected.getDepartment(), actual.getDepartment());
+            assertEquals(expected.getLastLoginTime(), actual.getLastLoginTime());
+        }
+        int iterated = 0;
+        for (AccessHistory view : store) {
+            assertTrue(oracle.containsKey(view.getUserId()));
+            iterated++;
+        }
+        assertEquals(oracle.size(), iterated);
+    }
+}
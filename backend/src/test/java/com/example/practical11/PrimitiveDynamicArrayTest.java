@@ -0,0 +1,86 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IntDynamicArray / LongDynamicArray: exact size hints, growth factor, bulk operations
+ */
+class PrimitiveDynamicArrayTest {
+
+    @Test
+    void exactSizeHintAllocatesOnce() {
+        LongDynamicArray times = new LongDynamicArray(1000);
+        for (long i = 0; i < 1000; i++) {
+            times.add(1_700_000_000_000L + i);
+        }
+        assertEquals(1000, times.getCapacity());
+        assertEquals(1_700_000_000_999L, times.get(999));
+    }
+
+    @Test
+    void growsByTheConfiguredFactor() {
+        IntDynamicArray values = new IntDynamicArray(4, 1.5);
+        for (int i = 0; i < 5; i++) {
+            values.add(i);
+        }
+        assertEquals(6, values.getCapacity());
+
+        // A bulk add that needs more than one growth step reallocates once, to the exact minimum
+        values.addAll(new int[20]);
+        assertEquals(25, values.getCapacity());
+        assertEquals(25, values.size());
+
+        assertThrows(IllegalArgumentException.class, () -> new IntDynamicArray(4, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new LongDynamicArray(-1));
+    }
+
+    @Test
+    void bulkOperations() {
+        IntDynamicArray first = new IntDynamicArray();
+        first.addAll(new int[] { 5, 3, 9 });
+        IntDynamicArray second = new IntDynamicArray();
+        second.addAll(new int[] { 1, 7 });
+        first.addAll(second);
+        assertArrayEquals(new int[] { 5, 3, 9, 1, 7 }, first.toArray());
+
+        first.sort();
+        assertArrayEquals(new int[] { 1, 3, 5, 7, 9 }, first.toArray());
+        assertTrue(first.contains(7));
+        assertEquals(2, first.indexOf(5));
+
+        first.trimToSize();
+        assertEquals(5, first.getCapacity());
+        first.add(11); // Still grows after trimming
+        assertEquals(6, first.size());
+
+        LongDynamicArray longs = new LongDynamicArray();
+        longs.addAll(new long[] { 3L, Long.MAX_VALUE });
+        LongDynamicArray more = new LongDynamicArray();
+        more.addAll(longs);
+        more.add(0, -1L);
+        assertArrayEquals(new long[] { -1L, 3L, Long.MAX_VALUE }, more.toArray());
+        assertEquals("[-1, 3, 9223372036854775807]", more.toString());
+    }
+
+    @Test
+    void removeAndBoundsChecks() {
+        LongDynamicArray values = new LongDynamicArray();
+        values.addAll(new long[] { 10, 20, 30 });
+        assertEquals(20, values.remove(1));
+        assertEquals(10, values.set(0, 11));
+        assertArrayEquals(new long[] { 11, 30 }, values.toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> values.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> values.add(3, 1));
+
+        values.clear();
+        assertTrue(values.isEmpty());
+        assertFalse(values.contains(30));
+        assertArrayEquals(new long[0], values.toArray());
+    }
+}
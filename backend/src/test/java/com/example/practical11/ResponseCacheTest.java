@@ -0,0 +1,40 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ResponseCacheTest {
+
+    /**
+     * Versions restart at 0 after a restart; a tag from the previous process must not match
+     */
+    @Test
+    void etagsDifferAcrossProcesses() {
+        ResponseCache before = new ResponseCache();
+        ResponseCache after = new ResponseCache();
+        assertEquals(before.etag("users", 7), before.etag("users", 7));
+        assertNotEquals(before.etag("users", 7), after.etag("users", 7));
+        assertNotEquals(before.etag("users", 7), before.etag("users", 8));
+        assertNotEquals(before.etag("info", 1, 23), before.etag("info", 12, 3));
+    }
+
+    @Test
+    void rebuildsOnlyWhenTheEtagChanges() {
+        ResponseCache cache = new ResponseCache();
+        AtomicInteger builds = new AtomicInteger();
+        ResponseCache.BodyWriter writer = out -> out.write(("body-" + builds.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+
+        byte[] first = cache.get("users", cache.etag("users", 1), writer);
+        assertArrayEquals(first, cache.get("users", cache.etag("users", 1), writer));
+        assertEquals(1, builds.get());
+
+        cache.get("users", cache.etag("users", 2), writer);
+        assertEquals(2, builds.get());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Session event log framing: replay stops at, and truncates, the first bad record instead
+ * of failing startup; concurrent appends share fsyncs without losing records
+ */
+class SessionEventLogTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        Path segment = writeThree();
+        long size = Files.size(segment);
+        Files.write(segment, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND); // Header of a torn record
+
+        assertEquals(3, readAll(segment).size());
+        assertEquals(size, Files.size(segment));
+    }
+
+    @Test
+    void zeroFilledTailIsTruncated() throws IOException {
+        Path segment = writeThree();
+        Files.write(segment, new byte[4096], StandardOpenOption.APPEND);
+
+        assertEquals(3, readAll(segment).size());
+    }
+
+    @Test
+    void garbageTailIsTruncated() throws IOException {
+        Path segment = writeThree();
+        long size = Files.size(segment);
+        // Plausible length, wrong checksum, and a payload that would not decode either
+        Files.write(segment, new byte[] { 0, 0, 0, 4, 1, 2, 3, 4, 'O', (byte) 0xFF, (byte) 0xFF, 0 },
+            StandardOpenOption.APPEND);
+
+        List<SessionEventLog.Record> records = readAll(segment);
+        assertEquals(3, records.size());
+        assertEquals("user-2", records.get(2).userId);
+        assertEquals(size, Files.size(segment));
+    }
+
+    @Test
+    void rejectedRecordEndsTheSegment() throws IOException {
+        Path segment = writeThree();
+        List<SessionEventLog.Record> seen = new ArrayList<>();
+        long accepted = SessionEventLog.read(segment, record -> {
+            seen.add(record);
+            return record.type == SessionEventLog.LOGIN;
+        });
+
+        assertEquals(1, accepted);
+        assertEquals(2, seen.size());
+        assertEquals(1, readAll(segment).size());
+    }
+
+    @Test
+    void concurrentAppendsAreAllDurable() throws Exception {
+        SessionEventLog log = new SessionEventLog(directory);
+        log.open();
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int writer = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long sequence;
+                        synchronized (log) { // SessionWriteBehind appends under its state lock
+                            sequence = log.append(SessionEventLog.LOGIN, "w" + writer + "-" + i, "dept", BASE);
+                        }
+                        log.sync(sequence);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+            log.close();
+        }
+
+        List<Path> segments = new SessionEventLog(directory).existingSegments();
+        assertEquals(1, segments.size());
+        assertEquals(threads * perThread, readAll(segments.get(0)).size());
+    }
+
+    private Path writeThree() throws IOException {
+        SessionEventLog log = new SessionEventLog(directory);
+        log.open();
+        log.append(SessionEventLog.LOGIN, "user-1", "dept", BASE);
+        log.append(SessionEventLog.LOGOUT, "user-1", null, BASE.plusMinutes(5));
+        log.sync(log.append(SessionEventLog.LOGIN, "user-2", "dept", BASE.plusMinutes(6)));
+        log.close();
+
+        List<Path> segments = log.existingSegments();
+        assertEquals(1, segments.size());
+        List<SessionEventLog.Record> records = readAll(segments.get(0));
+        assertEquals(3, records.size());
+        assertNull(records.get(1).department);
+        assertTrue(records.get(2).time.isAfter(records.get(1).time));
+        return segments.get(0);
+    }
+
+    private static List<SessionEventLog.Record> readAll(Path segment) throws IOException {
+        List<SessionEventLog.Record> records = new ArrayList<>();
+        SessionEventLog.read(segment, records::add);
+        return records;
+    }
+}
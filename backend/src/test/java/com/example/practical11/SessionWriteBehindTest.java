@@ -0,0 +1,53 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Readers flush queued write-behind events before they take a connection: with a single
+ * pooled connection, flushing inside the reader's transaction could never get one
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:session-write-behind-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "monitoring.persistence.enabled=false",
+    "sessions.write-behind.enabled=true",
+    "sessions.write-behind.flush-interval-ms=3600000",
+    "spring.datasource.hikari.maximum-pool-size=1",
+    "spring.datasource.hikari.connection-timeout=250"
+})
+class SessionWriteBehindTest {
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @Test
+    void readersSeeQueuedEventsWithOneConnection() {
+        userSessionService.startSession("queued-history", "dept");
+        assertEquals(1, userSessionService.getUserSessionHistory("queued-history").size());
+
+        userSessionService.startSession("queued-page", "dept");
+        List<UserSessionEntity> page = userSessionService.getSessionPage(new SessionQuery().userId("queued-page"));
+        assertEquals(1, page.size());
+
+        userSessionService.startSession("queued-all", "dept");
+        assertTrue(userSessionService.getAllSessions().stream()
+            .anyMatch(session -> session.getUserId().equals("queued-all")));
+
+        userSessionService.startSession("queued-stream", "dept");
+        List<String> streamed = new ArrayList<>();
+        userSessionService.forEachSession(session -> streamed.add(session.getUserId()));
+        assertTrue(streamed.contains("queued-stream"));
+
+        userSessionService.startSession("queued-delete", "dept");
+        userSessionService.deleteUserSessions("queued-delete");
+        assertEquals(0, userSessionService.getUserSessionHistory("queued-delete").size());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ShardedMonitoringSystem must be indistinguishable from a single MonitoringSystem:
+ * the same random operations give the same results and the same merged order
+ */
+class ShardedMonitoringSystemTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void behavesLikeSingleMonitoringSystem() {
+        MonitoringSystem single = new MonitoringSystem("Single");
+        ShardedMonitoringSystem sharded = new ShardedMonitoringSystem("Sharded", 5);
+        Random random = new Random(1);
+
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(10);
+            String userId = "u" + random.nextInt(3000);
+            if (op < 5) {
+                // Emails collide across users and differ in case: uniqueness spans shards
+                String email = "e" + random.nextInt(3500) + "@example.com";
+                if (random.nextBoolean()) {
+                    email = email.toUpperCase();
+                }
+                AccessHistory user = new AccessHistory(userId, "User", email, "d" + random.nextInt(4),
+                    BASE.plusSeconds(random.nextInt(100_000)));
+                assertEquals(single.addUser(user), sharded.addUser(user), "addUser at step " + step);
+            } else if (op < 7) {
+                assertEquals(single.removeUser(userId), sharded.removeUser(userId), "removeUser at step " + step);
+            } else if (op < 8) {
+                Map<String, LocalDateTime> logins = new LinkedHashMap<>();
+                for (int i = 0; i < 5; i++) {
+                    logins.put("u" + random.nextInt(3000), BASE.plusSeconds(random.nextInt(200_000)));
+                }
+                assertEquals(single.refreshLogins(logins), sharded.refreshLogins(logins), "refreshLogins at step " + step);
+            } else {
+                DynamicArray<AccessHistory> batch = new DynamicArray<>();
+                for (int i = 0; i < 20; i++) {
+                    batch.add(new AccessHistory("b" + random.nextInt(5000), "User",
+                        "e" + random.nextInt(3500) + "@example.com", "d1", BASE.plusSeconds(random.nextInt(100_000))));
+                }
+                assertEquals(single.addUsers(batch), sharded.addUsers(batch), "addUsers at step " + step);
+            }
+        }
+        assertSameOrder(single.snapshot(), sharded.snapshot());
+        assertEquals(single.getDepartmentCounts(), sharded.getDepartmentCounts());
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = BASE.plusSeconds(random.nextInt(100_000));
+            LocalDateTime to = from.plusSeconds(random.nextInt(100_000));
+            assertSameOrder(single.getAccessHistoriesBetween(from, to, null, null, 50),
+                sharded.getAccessHistoriesBetween(from, to, null, null, 50));
+            assertSameOrder(single.getDepartmentHistories("d1", null, null, from, "u5", 30),
+                sharded.getDepartmentHistories("d1", null, null, from, "u5", 30));
+            assertSameOrder(single.getAccessHistoriesAfter(from, "u1", 40),
+                sharded.getAccessHistoriesAfter(from, "u1", 40));
+        }
+
+        LocalDateTime cutoff = BASE.plusSeconds(5000);
+        assertEquals(single.evictExpired(1000, cutoff), sharded.evictExpired(1000, cutoff));
+        assertEquals(single.getCurrentSize(), sharded.getCurrentSize());
+        assertSameOrder(single.snapshot(), sharded.snapshot());
+    }
+
+    /**
+     * Paging through the merged order with keyset cursors visits every user exactly once
+     */
+    @Test
+    void cursorPagesCoverMergedOrder() {
+        ShardedMonitoringSystem sharded = new ShardedMonitoringSystem("Sharded", 4);
+        for (int i = 0; i < 1000; i++) {
+            // Many equal login times: ties are broken by userId across shards
+            sharded.addUser(new AccessHistory("user-" + i, "User", null, "dept", BASE.plusSeconds(i / 10)));
+        }
+
+        AccessSnapshot all = sharded.snapshot();
+        int seen = 0;
+        LocalDateTime afterTime = null;
+        String afterUserId = null;
+        while (true) {
+            DynamicArray<AccessHistory> page = sharded.getAccessHistoriesAfter(afterTime, afterUserId, 37);
+            if (page.size() == 0) {
+                break;
+            }
+            for (int i = 0; i < page.size(); i++) {
+                assertEquals(all.get(seen++).getUserId(), page.get(i).getUserId());
+            }
+            AccessHistory last = page.get(page.size() - 1);
+            afterTime = last.getLastLoginTime();
+            afterUserId = last.getUserId();
+        }
+        assertEquals(1000, seen);
+    }
+
+    @Test
+    void emailsStayUniqueAcrossShards() {
+        ShardedMonitoringSystem sharded = new ShardedMonitoringSystem("Sharded", 8);
+        assertTrue(sharded.addUser(new AccessHistory("alice", "Alice", "Shared@Example.com", "dept")));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(sharded.addUser(new AccessHistory("other-" + i, "Other", "shared@example.com", "dept")));
+        }
+        assertEquals("alice", sharded.getUserByEmail("SHARED@example.com").getUserId());
+
+        assertTrue(sharded.removeUser("alice"));
+        assertTrue(sharded.addUser(new AccessHistory("other-0", "Other", "shared@example.com", "dept")));
+    }
+
+    private static void assertSameOrder(AccessSnapshot expected, AccessSnapshot actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getUserId(), actual.get(i).getUserId(), "position " + i);
+        }
+    }
+
+    private static void assertSameOrder(DynamicArray<AccessHistory> expected, DynamicArray<AccessHistory> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getUserId(), actual.get(i).getUserId(), "position " + i);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.practical11;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Write-through login/logout: several events for one user in one transaction (as an
+ * ingestion batch applies them) and concurrent logins for one user
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:user-session-service-test;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "monitoring.persistence.enabled=false"
+})
+class UserSessionServiceTest {
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @Autowired
+    private UserSessionRepository sessionRepository;
+
+    @Autowired
+    private ActiveSessionIndex activeSessionIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void loginThenLogoutInOneTransaction() {
+        String userId = "batch-login-logout";
+        inTransaction(() -> {
+            assertNotNull(userSessionService.startSession(userId, "dept"));
+            assertTrue(userSessionService.endSession(userId));
+        });
+
+        assertFalse(userSessionService.hasActiveSession(userId));
+        List<UserSessionEntity> sessions = sessionRepository.findByUserIdOrderByLoginTimeDesc(userId);
+        assertEquals(1, sessions.size());
+        assertEquals(UserSessionEntity.SessionStatus.COMPLETED, sessions.get(0).getSessionStatus());
+        assertNotNull(sessions.get(0).getLogoutTime());
+    }
+
+    @Test
+    void repeatedLoginInOneTransactionReusesSession() {
+        String userId = "batch-login-login";
+        inTransaction(() -> {
+            UserSessionEntity first = userSessionService.startSession(userId, "dept");
+            UserSessionEntity second = userSessionService.startSession(userId, "dept");
+            assertEquals(first.getId(), second.getId());
+        });
+
+        assertEquals(1, sessionRepository.countByUserId(userId));
+        assertTrue(userSessionService.hasActiveSession(userId));
+    }
+
+    @Test
+    void logoutThenLoginInOneTransactionStartsNewSession() {
+        String userId = "batch-logout-login";
+        Long previous = userSessionService.startSession(userId, "dept").getId();
+        inTransaction(() -> {
+            assertTrue(userSessionService.endSession(userId));
+            assertFalse(userSessionService.endSession(userId));
+            userSessionService.startSession(userId, "dept");
+        });
+
+        List<UserSessionEntity> sessions = sessionRepository.findByUserIdOrderByLoginTimeDesc(userId);
+        assertEquals(2, sessions.size());
+        assertEquals(1, sessions.stream().filter(UserSessionEntity::isActive).count());
+        Long current = activeSessionIndex.get(userId).getId();
+        assertFalse(previous.equals(current));
+        assertTrue(sessionRepository.findById(current).get().isActive());
+    }
+
+    @Test
+    void rollbackRestoresActiveSession() {
+        String userId = "batch-rollback";
+        Long previous = userSessionService.startSession(userId, "dept").getId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userSessionService.endSession(userId);
+            userSessionService.startSession(userId, "dept");
+            userSessionService.endSession(userId);
+            userSessionService.startSession(userId, "dept");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(previous, activeSessionIndex.get(userId).getId());
+        List<UserSessionEntity> sessions = sessionRepository.findByUserIdOrderByLoginTimeDesc(userId);
+        assertEquals(1, sessions.size());
+        assertTrue(sessions.get(0).isActive());
+    }
+
+    @Test
+    void concurrentLoginsCreateOneSession() throws Exception {
+        String userId = "concurrent-login";
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<UserSessionEntity>> logins = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                logins.add(pool.submit(() -> {
+                    start.await();
+                    return userSessionService.startSession(userId, "dept");
+                }));
+            }
+            start.countDown();
+            for (Future<UserSessionEntity> login : logins) {
+                assertNotNull(login.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<UserSessionEntity> sessions = sessionRepository.findByUserIdOrderByLoginTimeDesc(userId);
+        assertEquals(1, sessions.size());
+        assertEquals(sessions.get(0).getId(), activeSessionIndex.get(userId).getId());
+
+        assertTrue(userSessionService.endSession(userId));
+        assertFalse(sessionRepository.findById(sessions.get(0).getId()).get().isActive());
+    }
+
+    private void inTransaction(Runnable events) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> events.run());
+    }
+}
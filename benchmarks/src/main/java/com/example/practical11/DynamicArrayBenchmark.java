@@ -0,0 +1,73 @@
+package com.example.practical11;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DynamicArray growth, linear search and removal
+ * DynamicArray is not thread-safe, so every thread works on its own copy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DynamicArrayBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double hitRatio;
+
+    DynamicArray<String> array;
+    String[] keys;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        array = new DynamicArray<>();
+        for (int i = 0; i < size; i++) {
+            array.add(UserKeys.registered(i));
+        }
+        keys = UserKeys.lookupRing(size, hitRatio, 7L);
+    }
+
+    @Benchmark
+    public DynamicArray<String> add() {
+        DynamicArray<String> built = new DynamicArray<>();
+        for (int i = 0; i < size; i++) {
+            built.add(keys[i & UserKeys.KEY_MASK]);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return array.indexOf(keys[next++ & UserKeys.KEY_MASK]);
+    }
+
+    /**
+     * Removes a middle element and inserts it back at the same position
+     */
+    @Benchmark
+    public String remove() {
+        int index = size / 2;
+        String removed = array.remove(index);
+        array.add(index, removed);
+        return removed;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.practical11;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop login/logout load test against a running backend
+ * Each of `concurrency` simulated users repeatedly logs in and out as fast as the server
+ * answers, so throughput and latency show how request handling scales with the number of
+ * concurrent blocking requests. Run it once against the default platform-thread server
+ * and once against `mvn -Pjava21 spring-boot:run` (virtual threads) and compare
+ *
+ * The client is fully asynchronous (one HttpClient, no thread per simulated user), so it
+ * can hold thousands of requests in flight on Java 17
+ *
+ * Usage: java -cp benchmarks.jar com.example.practical11.LoginLoadTest
+ *            [--url http://localhost:8080] [--concurrency 2000] [--duration 30] [--warmup 5]
+ *            [--label platform] [--out benchmarks/results/login-load.csv]
+ */
+public class LoginLoadTest {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int concurrency;
+
+    private final DurationHistogram latencyMicros = new DurationHistogram(5);
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean recording;
+    private volatile long deadline;
+
+    LoginLoadTest(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "2000"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        String label = options.getOrDefault("label", "run");
+
+        LoginLoadTest test = new LoginLoadTest(url, concurrency);
+        test.registerUsers();
+        String result = test.run(label, warmupSeconds, durationSeconds);
+        System.out.println(result);
+
+        String out = options.get("out");
+        if (out != null) {
+            Path path = Paths.get(out);
+            if (!Files.exists(path)) {
+                Files.writeString(path, "label,concurrency,requests,throughput_rps,p50_ms,p90_ms,p99_ms,max_ms,errors\n");
+            }
+            Files.writeString(path, result + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    static String userId(int i) {
+        return "load-" + i;
+    }
+
+    /**
+     * Registers the simulated users; users left over from an earlier run are rejected as
+     * duplicates, which is fine
+     */
+    void registerUsers() throws IOException, InterruptedException {
+        for (int i = 0; i < concurrency; i++) {
+            String body = "{\"userId\":\"" + userId(i) + "\",\"name\":\"Load " + i
+                + "\",\"email\":\"" + userId(i) + "@example.com\",\"department\":\"dept-" + (i % 16) + "\"}";
+            client.send(post("/api/access-history", body), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    /**
+     * Runs the warmup and the measured phase; returns one CSV line of results
+     */
+    String run(String label, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        long start = System.nanoTime();
+        deadline = start + (warmupSeconds + durationSeconds) * 1_000_000_000L;
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            loop(userId(i), finished);
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        recording = true;
+        long measuredFrom = System.nanoTime();
+        finished.await();
+        double seconds = (System.nanoTime() - measuredFrom) / 1e9;
+
+        DurationHistogram.Summary summary = latencyMicros.summary();
+        return String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%d",
+            label, concurrency, summary.getCount(), summary.getCount() / seconds,
+            summary.getP50() / 1000.0, summary.getP90() / 1000.0, summary.getP99() / 1000.0,
+            summary.getMax() / 1000.0, errors.get());
+    }
+
+    /**
+     * One simulated user: login, logout, repeat until the deadline
+     */
+    private void loop(String userId, CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        String body = "{\"userId\":\"" + userId + "\"}";
+        timed(post("/api/sessions/login", body))
+            .thenCompose(ignored -> timed(post("/api/sessions/logout", body)))
+            .whenComplete((ignored, error) -> loop(userId, finished));
+    }
+
+    private CompletableFuture<Void> timed(HttpRequest request) {
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                if (recording) {
+                    latencyMicros.record((System.nanoTime() - sent) / 1000);
+                    if (error != null || response.statusCode() >= 300) {
+                        errors.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+}
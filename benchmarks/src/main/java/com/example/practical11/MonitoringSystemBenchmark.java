@@ -0,0 +1,148 @@
+package com.example.practical11;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of MonitoringSystem: lookup, login refresh / registration, removal and snapshot
+ * snapshot() and getAllAccessHistories() measure the cached epoch; their *AfterWrite
+ * variants refresh one user first, so every call pays for a fresh copy
+ * The store is shared by all benchmark threads; run with -t N to measure contention (JMH
+ * cannot @Param the thread count), and with -p shards=1,4,8 to compare against
+ * ShardedMonitoringSystem
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MonitoringSystemBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int userCount;
+
+    @Param({"0.0", "0.5", "0.9", "1.0"})
+    public double hitRatio;
+
+    @Param({"1"})
+    public int shards;
+
+    MonitoringSystem system;
+    String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = UserKeys.populate(userCount, shards);
+        keys = UserKeys.lookupRing(userCount, hitRatio, 42L);
+    }
+
+    /**
+     * Per-thread position in the key ring so threads do not share a counter
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = (int) Thread.currentThread().getId() * 7919;
+        }
+
+        String take(String[] keys) {
+            return keys[next++ & UserKeys.KEY_MASK];
+        }
+    }
+
+    /**
+     * Refreshes one registered user's login time before each invocation, so the store has
+     * moved on to a new epoch and the next snapshot must copy it again
+     * Runs outside the measured time; Level.Invocation adds timer overhead, which is small
+     * next to a copy of the store
+     */
+    @State(Scope.Thread)
+    public static class Mutation {
+        int next;
+
+        @Setup(Level.Invocation)
+        public void refreshOneUser(MonitoringSystemBenchmark benchmark) {
+            benchmark.system.addUser(UserKeys.registered(next++ % benchmark.userCount));
+        }
+    }
+
+    @Benchmark
+    public AccessHistory getUserHistory(Cursor cursor) {
+        return system.getUserHistory(cursor.take(keys));
+    }
+
+    /**
+     * Hits refresh the login time; misses register and are removed again to keep the size stable
+     */
+    @Benchmark
+    public boolean addUser(Cursor cursor) {
+        String userId = cursor.take(keys);
+        boolean added = system.addUser(userId);
+        if (added) {
+            system.removeUser(userId);
+        }
+        return added;
+    }
+
+    /**
+     * Removes a registered user and registers it again
+     */
+    @Benchmark
+    public boolean removeUser(Cursor cursor) {
+        String userId = cursor.take(keys);
+        AccessHistory history = system.getUserHistory(userId);
+        boolean removed = system.removeUser(userId);
+        if (history != null) {
+            system.addUser(history);
+        }
+        return removed;
+    }
+
+    /**
+     * Shared epoch snapshot; only the first call after a mutation pays for the copy
+     */
+    @Benchmark
+    public AccessSnapshot snapshot() {
+        return system.snapshot();
+    }
+
+    /**
+     * Snapshot after a write: the copy every reader pays for once per epoch
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AccessSnapshot snapshotAfterWrite(Mutation mutation) {
+        return system.snapshot();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DynamicArray<AccessHistory> getAllAccessHistories() {
+        return system.getAllAccessHistories();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DynamicArray<AccessHistory> getAllAccessHistoriesAfterWrite(Mutation mutation) {
+        return system.getAllAccessHistories();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.practical11;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OffHeapAccessStore against the on-heap MonitoringSystem for the same users
+ * Lookup throughput here; run with -prof gc to compare allocation, and compare heap
+ * usage after setUp (e.g. jcmd GC.heap_info) for the footprint
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapAccessStoreBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int userCount;
+
+    MonitoringSystem heap;
+    OffHeapAccessStore offHeap;
+    String[] keys;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        heap = UserKeys.populate(userCount);
+        offHeap = new OffHeapAccessStore();
+        for (AccessHistory history : heap.snapshot()) {
+            offHeap.put(history);
+        }
+        keys = UserKeys.lookupRing(userCount, 1.0, 42L);
+    }
+
+    @Benchmark
+    public LocalDateTime heapLookup() {
+        return heap.getUserHistory(keys[next++ & UserKeys.KEY_MASK]).getLastLoginTime();
+    }
+
+    @Benchmark
+    public LocalDateTime offHeapLookup() {
+        return offHeap.get(keys[next++ & UserKeys.KEY_MASK]).getLastLoginTime();
+    }
+
+    @Benchmark
+    public boolean offHeapTouch() {
+        return offHeap.touch(keys[next++ & UserKeys.KEY_MASK], LocalDateTime.now());
+    }
+}
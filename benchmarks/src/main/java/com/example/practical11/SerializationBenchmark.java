@@ -0,0 +1,57 @@
+package com.example.practical11;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response building for GET /api/access-history: snapshot plus streamed JSON serialization
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int userCount;
+
+    MonitoringSystem system;
+    JsonFactory jsonFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = UserKeys.populate(userCount);
+        jsonFactory = new JsonFactory();
+    }
+
+    @Benchmark
+    public void accessHistoryResponse() throws IOException {
+        AccessSnapshot snapshot = system.snapshot();
+        try (JsonGenerator json = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            json.writeStartArray();
+            for (AccessHistory history : snapshot) {
+                AccessHistoryController.writeHistory(json, history);
+            }
+            json.writeEndArray();
+        }
+    }
+}
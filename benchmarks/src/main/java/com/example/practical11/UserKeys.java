@@ -0,0 +1,50 @@
+package com.example.practical11;
+
+import java.util.Random;
+
+/**
+ * Deterministic userId workloads shared by the benchmarks
+ * Registered users are "user-0" .. "user-(n-1)"; misses use ids that are never registered
+ */
+final class UserKeys {
+    static final int KEY_MASK = (1 << 16) - 1; // Lookup key ring, power of two
+
+    private UserKeys() {
+    }
+
+    static String registered(int i) {
+        return "user-" + i;
+    }
+
+    static MonitoringSystem populate(int userCount) {
+        return populate(userCount, 1);
+    }
+
+    /**
+     * With shards > 1 the users go into a ShardedMonitoringSystem
+     */
+    static MonitoringSystem populate(int userCount, int shards) {
+        MonitoringSystem system = shards > 1
+            ? new ShardedMonitoringSystem("benchmark", shards)
+            : new MonitoringSystem("benchmark");
+        for (int i = 0; i < userCount; i++) {
+            system.addUser(new AccessHistory(registered(i), "User " + i,
+                "user" + i + "@example.com", "dept-" + (i % 16)));
+        }
+        return system;
+    }
+
+    /**
+     * Builds a key ring where roughly hitRatio of the keys are registered users
+     */
+    static String[] lookupRing(int userCount, double hitRatio, long seed) {
+        Random random = new Random(seed);
+        String[] keys = new String[KEY_MASK + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextDouble() < hitRatio
+                ? registered(random.nextInt(userCount))
+                : "missing-" + random.nextInt(Integer.MAX_VALUE);
+        }
+        return keys;
+    }
+}
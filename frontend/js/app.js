@@ -2,6 +2,9 @@
 class AccessMonitoringApp {
     constructor() {
         this.apiBaseUrl = 'http://localhost:8080/api';
+        this.users = new Map();
+        this.sessions = [];
+        this.renderPending = false;
         this.init();
     }
 
@@ -10,6 +13,84 @@ class AccessMonitoringApp {
         this.loadSystemInfo();
         this.loadRegisteredUsers();
         this.loadAccessHistory();
+        this.subscribeToChanges();
+    }
+
+    // 订阅服务器推送的增量变更 (Server-Sent Events)，代替重复拉取完整列表
+    subscribeToChanges() {
+        if (!window.EventSource) {
+            return;
+        }
+        const events = new EventSource(`${this.apiBaseUrl}/events`);
+        let reconnecting = false;
+
+        events.addEventListener('user', (e) => this.applyUserEvent(JSON.parse(e.data)));
+        events.addEventListener('session', (e) => this.applySessionEvent(JSON.parse(e.data)));
+        // 客户端落后太多，服务器丢弃了部分事件：重新加载完整列表
+        events.addEventListener('resync', () => this.reloadAll());
+
+        events.onopen = () => {
+            // 断线期间的变更无法补发，重连后重新加载
+            if (reconnecting) {
+                this.reloadAll();
+            }
+            reconnecting = false;
+        };
+        events.onerror = () => {
+            reconnecting = true;
+        };
+    }
+
+    reloadAll() {
+        this.loadRegisteredUsers();
+        this.loadAccessHistory();
+    }
+
+    applyUserEvent(event) {
+        if (event.action === 'upsert') {
+            this.users.set(event.user.userId, event.user);
+        } else if (event.action === 'remove') {
+            this.users.delete(event.userId);
+        }
+        this.scheduleRender();
+    }
+
+    applySessionEvent(event) {
+        const isSame = s => s.userId === event.userId && s.loginTime === event.loginTime;
+        if (event.action === 'started') {
+            if (this.sessions.some(isSame)) {
+                return; // 初始加载已包含该会话
+            }
+            this.sessions.unshift({
+                id: event.id,
+                userId: event.userId,
+                department: event.department,
+                loginTime: event.loginTime,
+                logoutTime: null
+            });
+        } else if (event.action === 'ended') {
+            const session = this.sessions.find(s => isSame(s) && !s.logoutTime);
+            if (session) {
+                session.logoutTime = event.logoutTime;
+            }
+        } else if (event.action === 'deleted') {
+            this.sessions = this.sessions.filter(s => s.userId !== event.userId);
+        }
+        this.scheduleRender();
+    }
+
+    // 合并短时间内的多个事件，只重绘一次
+    scheduleRender() {
+        if (this.renderPending) {
+            return;
+        }
+        this.renderPending = true;
+        setTimeout(() => {
+            this.renderPending = false;
+            this.renderRegisteredUsers(Array.from(this.users.values()));
+            this.renderAccessHistory(this.sessions);
+            this.loadSystemInfo();
+        }, 200);
     }
 
     bindEvents() {
@@ -59,6 +140,7 @@ class AccessMonitoringApp {
             const response = await fetch(`${this.apiBaseUrl}/access-history`);
             const users = await response.json();
 
+            this.users = new Map(users.map(user => [user.userId, user]));
             this.renderRegisteredUsers(users);
         } catch (error) {
             console.error('加载注册用户失败 (Failed to load registered users):', error);
@@ -90,6 +172,7 @@ class AccessMonitoringApp {
             const response = await fetch(`${this.apiBaseUrl}/sessions/all`);
             const data = await response.json();
 
+            this.sessions = data;
             this.renderAccessHistory(data);
             this.loadSystemInfo(); // 同时更新系统信息
         } catch (error) {